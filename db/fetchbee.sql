@@ -128,6 +128,7 @@ CREATE TABLE `notification`  (
   INDEX `idx_user_id`(`user_id`) USING BTREE,
   INDEX `idx_is_read`(`is_read`) USING BTREE,
   INDEX `idx_create_time`(`create_time`) USING BTREE,
+  INDEX `idx_user_read_create_time`(`user_id`, `is_read`, `create_time`) USING BTREE,
   CONSTRAINT `notification_ibfk_1` FOREIGN KEY (`user_id`) REFERENCES `user` (`id`) ON DELETE CASCADE ON UPDATE RESTRICT
 ) ENGINE = InnoDB AUTO_INCREMENT = 23 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '消息通知表' ROW_FORMAT = Dynamic;
 
@@ -162,6 +163,28 @@ INSERT INTO `notification` VALUES (31, 2, 'ORDER_COMPLETED', '订单已完成',
 INSERT INTO `notification` VALUES (32, 2, 'ORDER_ACCEPTED', '订单已被接单', '您的订单【FO2025112416530325d77e】已被 faye 接单', 29, 1, '2025-11-24 16:53:15');
 INSERT INTO `notification` VALUES (33, 2, 'ORDER_DELIVERED', '快递已送达', '您的快递已送达，请确认收货', 29, 0, '2025-11-24 16:56:26');
 
+-- ----------------------------
+-- Table structure for notification_outbox
+-- ----------------------------
+DROP TABLE IF EXISTS `notification_outbox`;
+CREATE TABLE `notification_outbox`  (
+  `id` bigint(0) NOT NULL AUTO_INCREMENT COMMENT '事件ID',
+  `user_id` bigint(0) NOT NULL COMMENT '接收通知的用户ID',
+  `type` varchar(50) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '通知类型',
+  `title` varchar(100) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '通知标题',
+  `content` varchar(500) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '通知内容',
+  `order_id` bigint(0) NULL DEFAULT NULL COMMENT '关联订单ID',
+  `status` tinyint(0) NOT NULL DEFAULT 0 COMMENT '状态：0-待投递，1-已投递，2-投递失败',
+  `retry_count` int(0) NOT NULL DEFAULT 0 COMMENT '已重试次数',
+  `next_retry_time` datetime(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) COMMENT '下次投递时间',
+  `last_error` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NULL DEFAULT NULL COMMENT '最近一次投递失败原因',
+  `create_time` datetime(0) NOT NULL DEFAULT CURRENT_TIMESTAMP(0) COMMENT '创建时间',
+  `update_time` datetime(0) NOT NULL DEFAULT CURRENT_TIMESTAMP(0) ON UPDATE CURRENT_TIMESTAMP(0) COMMENT '更新时间',
+  PRIMARY KEY (`id`) USING BTREE,
+  INDEX `idx_status_next_retry_time`(`status`, `next_retry_time`) USING BTREE,
+  INDEX `idx_status_update_time`(`status`, `update_time`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '通知发件箱表' ROW_FORMAT = Dynamic;
+
 -- ----------------------------
 -- Table structure for order
 -- ----------------------------
@@ -193,6 +216,7 @@ CREATE TABLE `order`  (
   `rights_fund_to` varchar(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NULL DEFAULT NULL COMMENT '资金流向：publisher-发布者，receiver-接单者（仅在接单者维权通过时使用）',
   `create_time` datetime(0) NOT NULL DEFAULT CURRENT_TIMESTAMP(0) COMMENT '创建时间',
   `update_time` datetime(0) NOT NULL DEFAULT CURRENT_TIMESTAMP(0) ON UPDATE CURRENT_TIMESTAMP(0) COMMENT '更新时间',
+  `version` int(0) NOT NULL DEFAULT 0 COMMENT '版本号（乐观锁）',
   PRIMARY KEY (`id`) USING BTREE,
   UNIQUE INDEX `order_no`(`order_no`) USING BTREE,
   INDEX `idx_order_no`(`order_no`) USING BTREE,
@@ -201,6 +225,9 @@ CREATE TABLE `order`  (
   INDEX `idx_status`(`status`) USING BTREE,
   INDEX `idx_create_time`(`create_time`) USING BTREE,
   INDEX `idx_deliver_time`(`deliver_time`) USING BTREE,
+  INDEX `idx_status_create_time_id`(`status`, `create_time`, `id`) USING BTREE,
+  INDEX `idx_status_deadline`(`status`, `deadline`) USING BTREE,
+  INDEX `idx_status_deliver_time`(`status`, `deliver_time`) USING BTREE,
   CONSTRAINT `order_ibfk_1` FOREIGN KEY (`publisher_id`) REFERENCES `user` (`id`) ON DELETE CASCADE ON UPDATE RESTRICT,
   CONSTRAINT `order_ibfk_2` FOREIGN KEY (`receiver_id`) REFERENCES `user` (`id`) ON DELETE SET NULL ON UPDATE RESTRICT
 ) ENGINE = InnoDB AUTO_INCREMENT = 25 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '订单表' ROW_FORMAT = Dynamic;
@@ -236,6 +263,19 @@ INSERT INTO `order` VALUES (27, 'FO202511241641559c8587', 3, 2, '百世快递',
 INSERT INTO `order` VALUES (28, 'FO20251124164457265dc1', 2, NULL, '顺丰', '111', '测试app端取消订单', '顺丰快递站', '华夏女生宿舍楼3号楼101', 8.00, '2025-11-26 01:30:00', 5, NULL, NULL, NULL, '确定要取消这个订单吗？', '2025-11-24 16:44:57', '2025-11-24 16:45:12');
 INSERT INTO `order` VALUES (29, 'FO2025112416530325d77e', 2, 3, '顺丰', '1111', '测试app消息通知', '菜鸟驿站', '华夏女生宿舍楼3号楼101', 5.00, '2025-11-25 00:00:00', 3, NULL, '2025-11-24 16:56:26', NULL, NULL, '2025-11-24 16:53:03', '2025-11-24 16:56:26');
 
+-- ----------------------------
+-- Table structure for task_lease
+-- ----------------------------
+DROP TABLE IF EXISTS `task_lease`;
+CREATE TABLE `task_lease`  (
+  `task_name` varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '任务名称',
+  `owner` varchar(128) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL DEFAULT '' COMMENT '持有节点（主机名:进程号）',
+  `fencing_token` bigint(0) NOT NULL DEFAULT 0 COMMENT '防护令牌（每次易主加1）',
+  `expire_time` datetime(3) NOT NULL COMMENT '租约到期时间',
+  `update_time` datetime(0) NOT NULL DEFAULT CURRENT_TIMESTAMP(0) ON UPDATE CURRENT_TIMESTAMP(0) COMMENT '更新时间',
+  PRIMARY KEY (`task_name`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '定时任务租约表' ROW_FORMAT = Dynamic;
+
 -- ----------------------------
 -- Table structure for user
 -- ----------------------------
@@ -256,6 +296,7 @@ CREATE TABLE `user`  (
   `verification_remark` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NULL DEFAULT NULL COMMENT '审核备注（拒绝原因等）',
   `create_time` datetime(0) NOT NULL DEFAULT CURRENT_TIMESTAMP(0) COMMENT '创建时间',
   `update_time` datetime(0) NOT NULL DEFAULT CURRENT_TIMESTAMP(0) ON UPDATE CURRENT_TIMESTAMP(0) COMMENT '更新时间',
+  `version` int(0) NOT NULL DEFAULT 0 COMMENT '版本号（乐观锁）',
   PRIMARY KEY (`id`) USING BTREE,
   UNIQUE INDEX `username`(`username`) USING BTREE,
   INDEX `idx_username`(`username`) USING BTREE,
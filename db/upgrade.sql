@@ -0,0 +1,71 @@
+/*
+ 快递蜂数据库增量升级脚本
+
+ 已使用 fetchbee.sql 初始化的数据库，按顺序执行以下语句即可升级到最新结构。
+ 新环境直接导入 fetchbee.sql，无需执行本脚本。
+*/
+
+-- ----------------------------
+-- 待接单列表游标分页索引
+-- ----------------------------
+ALTER TABLE `order` ADD INDEX `idx_status_create_time_id`(`status`, `create_time`, `id`) USING BTREE;
+
+-- ----------------------------
+-- 过期订单扫描索引
+-- ----------------------------
+ALTER TABLE `order` ADD INDEX `idx_status_deadline`(`status`, `deadline`) USING BTREE;
+
+-- ----------------------------
+-- 待确认订单扫描索引（自动确认）
+-- ----------------------------
+ALTER TABLE `order` ADD INDEX `idx_status_deliver_time`(`status`, `deliver_time`) USING BTREE;
+
+-- ----------------------------
+-- 定时任务租约表（多节点部署时协调定时任务）
+-- ----------------------------
+CREATE TABLE IF NOT EXISTS `task_lease`  (
+  `task_name` varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '任务名称',
+  `owner` varchar(128) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL DEFAULT '' COMMENT '持有节点（主机名:进程号）',
+  `fencing_token` bigint(0) NOT NULL DEFAULT 0 COMMENT '防护令牌（每次易主加1）',
+  `expire_time` datetime(3) NOT NULL COMMENT '租约到期时间',
+  `update_time` datetime(0) NOT NULL DEFAULT CURRENT_TIMESTAMP(0) ON UPDATE CURRENT_TIMESTAMP(0) COMMENT '更新时间',
+  PRIMARY KEY (`task_name`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '定时任务租约表' ROW_FORMAT = Dynamic;
+
+-- ----------------------------
+-- 通知发件箱表（状态变更在同一事务中写入事件，由后台批量投递为通知）
+-- ----------------------------
+CREATE TABLE IF NOT EXISTS `notification_outbox`  (
+  `id` bigint(0) NOT NULL AUTO_INCREMENT COMMENT '事件ID',
+  `user_id` bigint(0) NOT NULL COMMENT '接收通知的用户ID',
+  `type` varchar(50) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '通知类型',
+  `title` varchar(100) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '通知标题',
+  `content` varchar(500) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '通知内容',
+  `order_id` bigint(0) NULL DEFAULT NULL COMMENT '关联订单ID',
+  `status` tinyint(0) NOT NULL DEFAULT 0 COMMENT '状态：0-待投递，1-已投递，2-投递失败',
+  `retry_count` int(0) NOT NULL DEFAULT 0 COMMENT '已重试次数',
+  `next_retry_time` datetime(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) COMMENT '下次投递时间',
+  `last_error` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NULL DEFAULT NULL COMMENT '最近一次投递失败原因',
+  `create_time` datetime(0) NOT NULL DEFAULT CURRENT_TIMESTAMP(0) COMMENT '创建时间',
+  `update_time` datetime(0) NOT NULL DEFAULT CURRENT_TIMESTAMP(0) ON UPDATE CURRENT_TIMESTAMP(0) COMMENT '更新时间',
+  PRIMARY KEY (`id`) USING BTREE,
+  INDEX `idx_status_next_retry_time`(`status`, `next_retry_time`) USING BTREE,
+  INDEX `idx_status_update_time`(`status`, `update_time`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '通知发件箱表' ROW_FORMAT = Dynamic;
+
+-- ----------------------------
+-- 未读通知查询/统计索引
+-- ----------------------------
+ALTER TABLE `notification` ADD INDEX `idx_user_read_create_time`(`user_id`, `is_read`, `create_time`) USING BTREE;
+
+-- ----------------------------
+-- 头像迁出用户表（由 AvatarMigrationTask 将内联头像写入头像存储，用户表只保存引用地址）
+-- 确认 SELECT COUNT(*) FROM `user` WHERE avatar LIKE 'data:%' 为0后再执行
+-- ----------------------------
+-- ALTER TABLE `user` MODIFY COLUMN `avatar` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NULL DEFAULT NULL COMMENT '头像URL';
+
+-- ----------------------------
+-- 订单表、用户表增加版本号（乐观锁）
+-- ----------------------------
+ALTER TABLE `order` ADD COLUMN `version` int(0) NOT NULL DEFAULT 0 COMMENT '版本号（乐观锁）' AFTER `update_time`;
+ALTER TABLE `user` ADD COLUMN `version` int(0) NOT NULL DEFAULT 0 COMMENT '版本号（乐观锁）' AFTER `update_time`;
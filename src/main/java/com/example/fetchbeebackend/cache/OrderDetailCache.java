@@ -0,0 +1,123 @@
+package com.example.fetchbeebackend.cache;
+
+import com.example.fetchbeebackend.utils.RedisUtil;
+import com.example.fetchbeebackend.utils.TransactionUtil;
+import com.example.fetchbeebackend.vo.OrderVO;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 订单详情缓存
+ * 以 order:detail:订单ID 在 Redis 中缓存组装好的订单快照（JSON，含发布者和接单者用户名），未命中时由调用方加载并回填。
+ * 快照与查看者无关：取件码为原值，是否超时和取件码隐藏由调用方在每次读取后按查看者处理，不写回缓存。
+ * 订单状态流转和维权信息变更后，在事务提交后把缓存替换为短时间的删除标记：标记存在期间读取直接查询数据库且不回填，
+ * 避免变更前开始的并发读取把旧快照写回并保留到过期。
+ * 每次返回新的对象，调用方可以直接修改。
+ */
+@Slf4j
+@Component
+public class OrderDetailCache {
+
+    private static final String KEY_PREFIX = "order:detail:";
+
+    /**
+     * 删除标记（不是合法的JSON，不会与缓存值混淆）
+     */
+    private static final String TOMBSTONE = "-";
+
+    @Value("${order.detail-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    /**
+     * 删除标记的保留时间（秒），需覆盖一次数据库读取加回填的耗时
+     */
+    @Value("${order.detail-cache.tombstone-seconds:5}")
+    private long tombstoneSeconds;
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private ObjectMapper jsonMapper;
+
+    private Counter hits;
+
+    private Counter misses;
+
+    @PostConstruct
+    public void init() {
+        hits = Counter.builder("order.detail.cache")
+                .tag("result", "hit")
+                .description("订单详情缓存命中次数")
+                .register(meterRegistry);
+        misses = Counter.builder("order.detail.cache")
+                .tag("result", "miss")
+                .description("订单详情缓存未命中次数")
+                .register(meterRegistry);
+
+        jsonMapper = objectMapper.copy().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    }
+
+    /**
+     * 查询订单快照（Redis -> loader）
+     * @param loader 未命中时加载快照，订单不存在时返回null（不缓存）
+     * @return 订单不存在时返回null
+     */
+    public OrderVO get(Long orderId, Function<Long, OrderVO> loader) {
+        String key = KEY_PREFIX + orderId;
+        String json;
+        try {
+            json = redisUtil.getString(key);
+            if (json != null && !TOMBSTONE.equals(json)) {
+                hits.increment();
+                return jsonMapper.readValue(json, OrderVO.class);
+            }
+        } catch (Exception e) {
+            log.warn("读取订单详情缓存失败，改为查询数据库：orderId={}, error={}", orderId, e.getMessage());
+            return loader.apply(orderId);
+        }
+        misses.increment();
+        if (TOMBSTONE.equals(json)) {
+            // 刚发生变更：直接查询数据库，不回填
+            return loader.apply(orderId);
+        }
+
+        OrderVO snapshot = loader.apply(orderId);
+        if (snapshot != null) {
+            try {
+                redisUtil.setStringIfAbsent(key, jsonMapper.writeValueAsString(snapshot), ttlSeconds, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                log.warn("回填订单详情缓存失败：orderId={}, error={}", orderId, e.getMessage());
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * 清除订单快照，写入删除标记（在事务中调用时，提交后才清除）
+     */
+    public void invalidate(Long orderId) {
+        TransactionUtil.afterCommit(() -> {
+            try {
+                redisUtil.setString(KEY_PREFIX + orderId, TOMBSTONE, tombstoneSeconds, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                log.warn("删除订单详情缓存失败，将在过期后失效：orderId={}, error={}", orderId, e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.fetchbeebackend.cache;
+
+import com.example.fetchbeebackend.entity.Order;
+import com.example.fetchbeebackend.mapper.OrderMapper;
+import com.example.fetchbeebackend.service.UserService;
+import com.example.fetchbeebackend.utils.TransactionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+/**
+ * 待接单订单簿（进程内缓存）
+ * 启动时从数据库加载全部待接单订单，之后随发布/接单/取消/过期增量维护，
+ * 待接单列表直接从内存读取；读取时过滤已过截止时间的订单。
+ * 其他节点产生的变更由定时全量刷新兜底。
+ * 刷新期间的增量变更同时记录下来，新订单簿加载完成后先重放再替换，避免变更丢失。
+ */
+@Slf4j
+@Component
+public class PendingOrderBook {
+
+    /**
+     * 加载时每批查询条数
+     */
+    private static final int LOAD_BATCH_SIZE = 500;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private UserService userService;
+
+    /**
+     * 当前订单簿，刷新时整体替换
+     */
+    private volatile Book book = new Book();
+
+    /**
+     * 是否已完成首次加载
+     */
+    private volatile boolean loaded = false;
+
+    /**
+     * 增量变更与订单簿替换的互斥锁
+     */
+    private final Object changeLock = new Object();
+
+    /**
+     * 刷新期间记录的增量变更（未在刷新时为null）
+     */
+    private List<Consumer<Book>> changesDuringReload;
+
+    /**
+     * 待接单订单条目
+     */
+    public record PendingOrder(Order order, String publisherName) {
+    }
+
+    /**
+     * 排序键：create_time DESC, id DESC（与数据库游标分页一致）
+     */
+    private record FeedKey(LocalDateTime createTime, Long id) implements Comparable<FeedKey> {
+        @Override
+        public int compareTo(FeedKey other) {
+            int result = other.createTime.compareTo(createTime);
+            return result != 0 ? result : other.id.compareTo(id);
+        }
+    }
+
+    /**
+     * 订单簿数据
+     */
+    private static class Book {
+        private final ConcurrentSkipListMap<FeedKey, PendingOrder> entries = new ConcurrentSkipListMap<>();
+        private final ConcurrentHashMap<Long, FeedKey> keys = new ConcurrentHashMap<>();
+
+        void put(PendingOrder pendingOrder) {
+            Order order = pendingOrder.order();
+            FeedKey key = new FeedKey(order.getCreateTime(), order.getId());
+            FeedKey oldKey = keys.put(order.getId(), key);
+            if (oldKey != null && !oldKey.equals(key)) {
+                entries.remove(oldKey);
+            }
+            entries.put(key, pendingOrder);
+        }
+
+        void remove(Long orderId) {
+            FeedKey key = keys.remove(orderId);
+            if (key != null) {
+                entries.remove(key);
+            }
+        }
+    }
+
+    /**
+     * 应用启动后加载订单簿
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload();
+    }
+
+    /**
+     * 定时全量刷新，修正其他节点产生的变更
+     */
+    @Scheduled(fixedDelayString = "${order.pending-book.refresh-ms:60000}",
+            initialDelayString = "${order.pending-book.refresh-ms:60000}")
+    public void refresh() {
+        reload();
+    }
+
+    /**
+     * 是否可用（首次加载完成前调用方应回退到数据库查询）
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * 添加待接单订单（在事务中调用时，提交后才生效）
+     */
+    public void add(Order order, String publisherName) {
+        PendingOrder pendingOrder = new PendingOrder(order, publisherName);
+        TransactionUtil.afterCommit(() -> apply(b -> b.put(pendingOrder)));
+    }
+
+    /**
+     * 移除订单（在事务中调用时，提交后才生效）
+     */
+    public void remove(Long orderId) {
+        TransactionUtil.afterCommit(() -> apply(b -> b.remove(orderId)));
+    }
+
+    /**
+     * 应用增量变更，刷新期间同时记录以便重放到新订单簿
+     */
+    private void apply(Consumer<Book> change) {
+        synchronized (changeLock) {
+            change.accept(book);
+            if (changesDuringReload != null) {
+                changesDuringReload.add(change);
+            }
+        }
+    }
+
+    /**
+     * 查询全部未过期的待接单订单
+     */
+    public List<PendingOrder> list() {
+        LocalDateTime now = LocalDateTime.now();
+        List<PendingOrder> result = new ArrayList<>();
+        for (PendingOrder pendingOrder : book.entries.values()) {
+            if (pendingOrder.order().getDeadline().isAfter(now)) {
+                result.add(pendingOrder);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 游标分页查询未过期的待接单订单
+     */
+    public List<PendingOrder> page(LocalDateTime cursorTime, Long cursorId, int limit) {
+        ConcurrentNavigableMap<FeedKey, PendingOrder> view = book.entries;
+        if (cursorTime != null && cursorId != null) {
+            view = view.tailMap(new FeedKey(cursorTime, cursorId), false);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<PendingOrder> result = new ArrayList<>(limit);
+        for (PendingOrder pendingOrder : view.values()) {
+            if (result.size() >= limit) {
+                break;
+            }
+            if (pendingOrder.order().getDeadline().isAfter(now)) {
+                result.add(pendingOrder);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 从数据库分批加载全部待接单订单，重放加载期间的增量变更后整体替换
+     */
+    private synchronized void reload() {
+        synchronized (changeLock) {
+            changesDuringReload = new ArrayList<>();
+        }
+        try {
+            Book newBook = new Book();
+            LocalDateTime cursorTime = null;
+            Long cursorId = null;
+            while (true) {
+                List<Order> orders = orderMapper.findPendingOrdersByCursor(cursorTime, cursorId, LOAD_BATCH_SIZE);
+                if (orders.isEmpty()) {
+                    break;
+                }
+
+                Set<Long> publisherIds = new HashSet<>();
+                for (Order order : orders) {
+                    publisherIds.add(order.getPublisherId());
+                }
+                Map<Long, String> usernameMap = userService.getUsernameMap(publisherIds);
+                for (Order order : orders) {
+                    newBook.put(new PendingOrder(order, usernameMap.get(order.getPublisherId())));
+                }
+
+                if (orders.size() < LOAD_BATCH_SIZE) {
+                    break;
+                }
+                Order last = orders.get(orders.size() - 1);
+                cursorTime = last.getCreateTime();
+                cursorId = last.getId();
+            }
+
+            synchronized (changeLock) {
+                for (Consumer<Book> change : changesDuringReload) {
+                    change.accept(newBook);
+                }
+                book = newBook;
+            }
+            loaded = true;
+            log.debug("待接单订单簿加载完成：size={}", newBook.keys.size());
+        } catch (Exception e) {
+            log.error("待接单订单簿加载失败", e);
+        } finally {
+            synchronized (changeLock) {
+                changesDuringReload = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.fetchbeebackend.cache;
+
+import com.example.fetchbeebackend.mapper.UserMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 用户角色本地缓存
+ * 管理员接口鉴权时按用户ID缓存角色，按容量和写入时间淘汰；
+ * 角色只在数据库中直接修改，修改后最多在过期时间后生效。
+ */
+@Component
+public class RoleCache {
+
+    @Value("${auth.role-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${auth.role-cache.max-size:1000}")
+    private long maxSize;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<Long, Integer> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "role");
+    }
+
+    /**
+     * 查询用户角色（本地缓存未命中时查询数据库）
+     * @return 用户不存在时返回null
+     */
+    public Integer getRole(Long userId) {
+        return cache.get(userId, userMapper::findRoleById);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.fetchbeebackend.cache;
+
+import com.example.fetchbeebackend.utils.RedisUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * 登录会话本地缓存
+ * 以会话ID（Token 的 jti）为键，在 Redis 之前缓存“会话有效”的结果，按容量和写入时间淘汰，只缓存有效结果，无效会话每次都查询Redis。
+ * 登出时删除Redis中的会话后通过发布/订阅广播，各节点立即清除本地缓存；
+ * 广播丢失时本地缓存最多在过期时间后失效。
+ */
+@Slf4j
+@Component
+public class SessionCache {
+
+    /**
+     * 会话键前缀（session:会话ID）
+     */
+    public static final String KEY_PREFIX = "session:";
+
+    private static final String CHANNEL = "session:invalidate";
+
+    @Value("${auth.session-cache.ttl-seconds:10}")
+    private long ttlSeconds;
+
+    @Value("${auth.session-cache.max-size:10000}")
+    private long maxSize;
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, Boolean> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "session");
+
+        redisMessageListenerContainer.addMessageListener((message, pattern) ->
+                cache.invalidate(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * 判断会话是否有效（本地缓存未命中时查询Redis）
+     * 加载与清除对同一个键互斥，加载过程中收到的清除会在加载完成后生效，不会留下已登出的会话
+     */
+    public boolean isActive(String sessionId) {
+        Boolean active = cache.get(sessionId, key ->
+                Boolean.TRUE.equals(redisUtil.hasKey(KEY_PREFIX + key)) ? Boolean.TRUE : null);
+        return Boolean.TRUE.equals(active);
+    }
+
+    /**
+     * 清除会话（本节点立即清除，并通知其他节点清除）
+     */
+    public void invalidate(String sessionId) {
+        cache.invalidate(sessionId);
+        try {
+            redisUtil.publish(CHANNEL, sessionId);
+        } catch (Exception e) {
+            log.warn("广播会话清除消息失败，其他节点将在本地缓存过期后失效：error={}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.fetchbeebackend.cache;
+
+import com.example.fetchbeebackend.mapper.NotificationMapper;
+import com.example.fetchbeebackend.utils.RedisUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 未读通知计数器（Redis）
+ * 键为 notification:unread:用户ID，读取时不存在则从数据库统计后回填。
+ * 计数只在键存在时增减，键不存在时保持缺失，由下一次读取重新统计，避免从0开始累加出错误的值；
+ * 回填值带过期时间，偶发的并发偏差会在过期后自动修正。
+ */
+@Slf4j
+@Component
+public class UnreadCounter {
+
+    private static final String KEY_PREFIX = "notification:unread:";
+
+    /**
+     * 计数器过期时间（秒）
+     */
+    private static final long TTL_SECONDS = 3600;
+
+    /**
+     * 键存在时加1
+     */
+    private static final RedisScript<Long> INCR_IF_EXISTS = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then "
+                    + "return redis.call('INCR', KEYS[1]) "
+                    + "end "
+                    + "return -1", Long.class);
+
+    /**
+     * 键存在且大于0时减1
+     */
+    private static final RedisScript<Long> DECR_FLOOR = new DefaultRedisScript<>(
+            "local value = tonumber(redis.call('GET', KEYS[1])) "
+                    + "if value and value > 0 then "
+                    + "return redis.call('DECR', KEYS[1]) "
+                    + "end "
+                    + "return -1", Long.class);
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private NotificationMapper notificationMapper;
+
+    /**
+     * 查询未读数量（计数器缺失或Redis不可用时从数据库统计）
+     */
+    public long get(Long userId) {
+        String key = KEY_PREFIX + userId;
+        try {
+            String value = redisUtil.getString(key);
+            if (value != null) {
+                return Long.parseLong(value);
+            }
+        } catch (Exception e) {
+            log.warn("读取未读计数失败，改为从数据库统计：userId={}, error={}", userId, e.getMessage());
+            return notificationMapper.countUnreadByUserId(userId);
+        }
+
+        long count = notificationMapper.countUnreadByUserId(userId);
+        try {
+            redisUtil.setStringIfAbsent(key, String.valueOf(count), TTL_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("回填未读计数失败：userId={}, error={}", userId, e.getMessage());
+        }
+        return count;
+    }
+
+    /**
+     * 未读数量加1
+     */
+    public void increment(Long userId) {
+        execute(INCR_IF_EXISTS, userId);
+    }
+
+    /**
+     * 未读数量减1（不小于0）
+     */
+    public void decrement(Long userId) {
+        execute(DECR_FLOOR, userId);
+    }
+
+    /**
+     * 清除计数器，下次读取时从数据库重新统计
+     */
+    public void reset(Long userId) {
+        try {
+            redisUtil.delete(KEY_PREFIX + userId);
+        } catch (Exception e) {
+            log.warn("清除未读计数失败：userId={}, error={}", userId, e.getMessage());
+        }
+    }
+
+    private void execute(RedisScript<Long> script, Long userId) {
+        String key = KEY_PREFIX + userId;
+        try {
+            redisUtil.execute(script, List.of(key));
+        } catch (Exception e) {
+            // 计数无法更新时删除计数器，由下次读取重新统计
+            log.warn("更新未读计数失败：userId={}, error={}", userId, e.getMessage());
+            reset(userId);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.fetchbeebackend.cache;
+
+import com.example.fetchbeebackend.entity.User;
+import com.example.fetchbeebackend.mapper.UserMapper;
+import com.example.fetchbeebackend.utils.RedisUtil;
+import com.example.fetchbeebackend.utils.TransactionUtil;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户资料两级缓存
+ * 一级为本地缓存（按容量和写入时间淘汰），二级为 Redis（user:profile:用户ID，JSON），都未命中时查询数据库。
+ * 资料或余额变更后在事务提交后把 Redis 缓存替换为短时间的删除标记并清除本地缓存，通过发布/订阅通知其他节点清除本地缓存；
+ * 标记存在期间读取直接查询数据库且不回填，变更前读到旧值的并发请求无法再把旧值写回 Redis。
+ * 缓存的是个人资料字段（不含密码和认证信息），返回的对象为共享实例，调用方不应修改。
+ * 另有用户名本地缓存（用户名注册后不可修改，无需清除），供订单列表等批量查询用户名使用。
+ */
+@Slf4j
+@Component
+public class UserCache {
+
+    private static final String KEY_PREFIX = "user:profile:";
+
+    private static final String CHANNEL = "user:invalidate";
+
+    /**
+     * 删除标记（不是合法的JSON，不会与缓存值混淆）
+     */
+    private static final String TOMBSTONE = "-";
+
+    @Value("${user.cache.local-ttl-seconds:30}")
+    private long localTtlSeconds;
+
+    @Value("${user.cache.local-max-size:10000}")
+    private long localMaxSize;
+
+    @Value("${user.cache.redis-ttl-seconds:600}")
+    private long redisTtlSeconds;
+
+    /**
+     * 删除标记的保留时间（秒），需覆盖一次数据库读取加回填的耗时
+     */
+    @Value("${user.cache.tombstone-seconds:5}")
+    private long tombstoneSeconds;
+
+    @Value("${user.cache.username-max-size:50000}")
+    private long usernameMaxSize;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Cache<Long, User> cache;
+
+    private Cache<Long, String> usernameCache;
+
+    private ObjectMapper jsonMapper;
+
+    private Counter redisHits;
+
+    private Counter redisMisses;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(localTtlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "user");
+
+        usernameCache = Caffeine.newBuilder()
+                .maximumSize(usernameMaxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, usernameCache, "username");
+
+        redisHits = Counter.builder("user.cache.redis")
+                .tag("result", "hit")
+                .description("用户资料Redis缓存命中次数")
+                .register(meterRegistry);
+        redisMisses = Counter.builder("user.cache.redis")
+                .tag("result", "miss")
+                .description("用户资料Redis缓存未命中次数")
+                .register(meterRegistry);
+
+        // 不写入空字段，缓存值只包含资料字段
+        jsonMapper = objectMapper.copy().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+        redisMessageListenerContainer.addMessageListener((message, pattern) -> {
+            try {
+                cache.invalidate(Long.valueOf(new String(message.getBody(), StandardCharsets.UTF_8)));
+            } catch (Exception e) {
+                log.warn("处理用户缓存清除消息失败：error={}", e.getMessage());
+            }
+        }, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * 查询用户资料（本地缓存 -> Redis -> 数据库）
+     * @return 用户不存在时返回null
+     */
+    public User getProfile(Long userId) {
+        return cache.get(userId, this::load);
+    }
+
+    /**
+     * 批量查询用户名（本地缓存未命中的一次IN查询），不存在的用户不在结果中
+     */
+    public Map<Long, String> getUsernames(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        return new HashMap<>(usernameCache.getAll(userIds, missing -> {
+            Map<Long, String> loaded = new HashMap<>();
+            for (User user : userMapper.findUsernamesByIds(new ArrayList<>(missing))) {
+                loaded.put(user.getId(), user.getUsername());
+            }
+            return loaded;
+        }));
+    }
+
+    /**
+     * 清除用户资料缓存（在事务中调用时，提交后才清除）
+     */
+    public void invalidate(Long userId) {
+        TransactionUtil.afterCommit(() -> {
+            try {
+                redisUtil.setString(KEY_PREFIX + userId, TOMBSTONE, tombstoneSeconds, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                log.warn("删除用户Redis缓存失败，将在过期后失效：userId={}, error={}", userId, e.getMessage());
+            }
+            cache.invalidate(userId);
+            try {
+                redisUtil.publish(CHANNEL, String.valueOf(userId));
+            } catch (Exception e) {
+                log.warn("广播用户缓存清除消息失败，其他节点将在本地缓存过期后失效：userId={}, error={}",
+                        userId, e.getMessage());
+            }
+        });
+    }
+
+    private User load(Long userId) {
+        String key = KEY_PREFIX + userId;
+        try {
+            String json = redisUtil.getString(key);
+            if (TOMBSTONE.equals(json)) {
+                // 刚发生变更：直接查询数据库，不回填
+                redisMisses.increment();
+                return userMapper.findProfileById(userId);
+            }
+            if (json != null) {
+                redisHits.increment();
+                return jsonMapper.readValue(json, User.class);
+            }
+        } catch (Exception e) {
+            log.warn("读取用户Redis缓存失败，改为查询数据库：userId={}, error={}", userId, e.getMessage());
+            return userMapper.findProfileById(userId);
+        }
+        redisMisses.increment();
+
+        User user = userMapper.findProfileById(userId);
+        if (user != null) {
+            try {
+                redisUtil.setStringIfAbsent(key, jsonMapper.writeValueAsString(user), redisTtlSeconds, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                log.warn("回填用户Redis缓存失败：userId={}, error={}", userId, e.getMessage());
+            }
+        }
+        return user;
+    }
+}
@@ -40,5 +40,11 @@ public class ResultCode {
     
     // Token过期
     public static final int TOKEN_EXPIRED = 1006;
+    
+    // 并发修改冲突
+    public static final int CONCURRENT_UPDATE = 1007;
+    
+    // 重复请求处理中
+    public static final int DUPLICATE_REQUEST = 1008;
 }
 
@@ -1,5 +1,6 @@
 package com.example.fetchbeebackend.config;
 
+import com.example.fetchbeebackend.interceptor.AdminInterceptor;
 import com.example.fetchbeebackend.interceptor.AuthInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
@@ -16,6 +17,9 @@ public class WebConfig implements WebMvcConfigurer {
     @Autowired
     private AuthInterceptor authInterceptor;
     
+    @Autowired
+    private AdminInterceptor adminInterceptor;
+    
     /**
      * 配置拦截器
      */
@@ -26,10 +30,15 @@ public class WebConfig implements WebMvcConfigurer {
                 .excludePathPatterns(
                         "/user/register",
                         "/user/login",
+                        "/avatar/**",
                         "/error",
                         "/swagger-ui/**",
                         "/v3/api-docs/**"
                 );
+        
+        // 管理员接口在认证之后校验角色
+        registry.addInterceptor(adminInterceptor)
+                .addPathPatterns("/admin/**");
     }
     
     /**
@@ -1,20 +1,18 @@
 package com.example.fetchbeebackend.controller;
 
 import com.example.fetchbeebackend.common.Result;
-import com.example.fetchbeebackend.common.ResultCode;
 import com.example.fetchbeebackend.dto.ReviewVerificationRequest;
 import com.example.fetchbeebackend.dto.ReviewRightsProtectionRequest;
 import com.example.fetchbeebackend.dto.CreateAnnouncementRequest;
 import com.example.fetchbeebackend.dto.UpdateAnnouncementRequest;
-import com.example.fetchbeebackend.entity.User;
-import com.example.fetchbeebackend.exception.BusinessException;
-import com.example.fetchbeebackend.mapper.UserMapper;
 import com.example.fetchbeebackend.service.VerificationService;
 import com.example.fetchbeebackend.service.RightsProtectionService;
 import com.example.fetchbeebackend.service.AnnouncementService;
+import com.example.fetchbeebackend.service.TaskLeaseService;
 import com.example.fetchbeebackend.vo.VerificationRecordVO;
 import com.example.fetchbeebackend.vo.RightsProtectionVO;
 import com.example.fetchbeebackend.vo.AnnouncementVO;
+import com.example.fetchbeebackend.vo.TaskLeaseVO;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
@@ -25,6 +23,7 @@ import java.util.List;
 
 /**
  * 管理员控制器
+ * 管理员权限由 AdminInterceptor 统一校验
  */
 @Slf4j
 @RestController
@@ -41,20 +40,7 @@ public class AdminController {
     private AnnouncementService announcementService;
 
     @Autowired
-    private UserMapper userMapper;
-
-    /**
-     * 检查管理员权限
-     */
-    private void checkAdminRole(Long userId) {
-        User user = userMapper.findById(userId);
-        if (user == null) {
-            throw new BusinessException(ResultCode.USER_NOT_FOUND, "用户不存在");
-        }
-        if (user.getRole() == null || user.getRole() != 1) {
-            throw new BusinessException(ResultCode.FORBIDDEN, "无权限访问");
-        }
-    }
+    private TaskLeaseService taskLeaseService;
 
     /**
      * 获取待审核认证列表
@@ -62,7 +48,6 @@ public class AdminController {
     @GetMapping("/verifications/pending")
     public Result<List<VerificationRecordVO>> getPendingVerifications(HttpServletRequest request) {
         Long userId = (Long) request.getAttribute("userId");
-        checkAdminRole(userId);
         log.info("管理员获取待审核认证列表：adminId={}", userId);
         List<VerificationRecordVO> records = verificationService.getPendingVerifications();
         return Result.success(records);
@@ -76,7 +61,6 @@ public class AdminController {
                                            @PathVariable Long userId,
                                            @Valid @RequestBody ReviewVerificationRequest reviewRequest) {
         Long adminId = (Long) request.getAttribute("userId");
-        checkAdminRole(adminId);
         log.info("管理员审核学生认证：adminId={}, targetUserId={}, status={}",
                 adminId, userId, reviewRequest.getVerificationStatus());
         verificationService.reviewVerification(userId, reviewRequest);
@@ -89,7 +73,6 @@ public class AdminController {
     @GetMapping("/rights-protection/pending")
     public Result<List<RightsProtectionVO>> getPendingRightsProtectionList(HttpServletRequest request) {
         Long adminId = (Long) request.getAttribute("userId");
-        checkAdminRole(adminId);
         log.info("管理员获取待审核维权列表：adminId={}", adminId);
         List<RightsProtectionVO> records = rightsProtectionService.getPendingRightsProtectionList();
         return Result.success(records);
@@ -103,7 +86,6 @@ public class AdminController {
                                                @PathVariable Long orderId,
                                                @Valid @RequestBody ReviewRightsProtectionRequest reviewRequest) {
         Long adminId = (Long) request.getAttribute("userId");
-        checkAdminRole(adminId);
         log.info("管理员审核维权申请：adminId={}, orderId={}, status={}",
                 adminId, orderId, reviewRequest.getRightsStatus());
         rightsProtectionService.reviewRightsProtection(orderId, reviewRequest);
@@ -117,7 +99,6 @@ public class AdminController {
     public Result<Void> createAnnouncement(HttpServletRequest request,
                                            @Valid @RequestBody CreateAnnouncementRequest createRequest) {
         Long adminId = (Long) request.getAttribute("userId");
-        checkAdminRole(adminId);
         log.info("管理员创建公告：adminId={}, title={}", adminId, createRequest.getTitle());
         announcementService.createAnnouncement(createRequest, adminId);
         return Result.success("创建公告成功", null);
@@ -131,7 +112,6 @@ public class AdminController {
                                            @PathVariable Long id,
                                            @Valid @RequestBody UpdateAnnouncementRequest updateRequest) {
         Long adminId = (Long) request.getAttribute("userId");
-        checkAdminRole(adminId);
         log.info("管理员更新公告：adminId={}, announcementId={}", adminId, id);
         announcementService.updateAnnouncement(id, updateRequest);
         return Result.success("更新公告成功", null);
@@ -144,7 +124,6 @@ public class AdminController {
     public Result<Void> deleteAnnouncement(HttpServletRequest request,
                                            @PathVariable Long id) {
         Long adminId = (Long) request.getAttribute("userId");
-        checkAdminRole(adminId);
         log.info("管理员删除公告：adminId={}, announcementId={}", adminId, id);
         announcementService.deleteAnnouncement(id);
         return Result.success("删除公告成功", null);
@@ -156,9 +135,19 @@ public class AdminController {
     @GetMapping("/announcements")
     public Result<List<AnnouncementVO>> getAllAnnouncements(HttpServletRequest request) {
         Long adminId = (Long) request.getAttribute("userId");
-        checkAdminRole(adminId);
         log.info("管理员查询所有公告：adminId={}", adminId);
         List<AnnouncementVO> announcements = announcementService.getAllAnnouncements();
         return Result.success(announcements);
     }
+
+    /**
+     * 查询定时任务租约（各任务当前由哪个节点执行）
+     */
+    @GetMapping("/task-leases")
+    public Result<List<TaskLeaseVO>> getTaskLeases(HttpServletRequest request) {
+        Long adminId = (Long) request.getAttribute("userId");
+        log.info("管理员查询定时任务租约：adminId={}", adminId);
+        List<TaskLeaseVO> leases = taskLeaseService.listLeases();
+        return Result.success(leases);
+    }
 }
@@ -0,0 +1,63 @@
+package com.example.fetchbeebackend.controller;
+
+import com.example.fetchbeebackend.service.AvatarService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * 头像控制器
+ * 头像地址包含内容哈希，内容不会变化：以哈希作为强ETag，并允许客户端长期缓存。
+ * 响应带 X-Content-Type-Options: nosniff，浏览器只按声明的图片类型处理，不嗅探为其他类型。
+ */
+@RestController
+@RequestMapping("/avatar")
+public class AvatarController {
+
+    private static final String NO_SNIFF_HEADER = "X-Content-Type-Options";
+
+    @Autowired
+    private AvatarService avatarService;
+
+    /**
+     * 获取头像
+     */
+    @GetMapping("/{hash}.{ext}")
+    public ResponseEntity<Resource> getAvatar(@PathVariable String hash,
+                                              @PathVariable String ext,
+                                              @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        Path path = avatarService.find(hash, ext);
+        if (path == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String etag = "\"" + hash + "\"";
+        CacheControl cacheControl = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .header(NO_SNIFF_HEADER, "nosniff")
+                    .eTag(etag)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+
+        return ResponseEntity.ok()
+                .header(NO_SNIFF_HEADER, "nosniff")
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .contentType(MediaType.parseMediaType(avatarService.getContentType(ext)))
+                .body(new FileSystemResource(path));
+    }
+}
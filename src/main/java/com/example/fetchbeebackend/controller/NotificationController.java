@@ -2,13 +2,15 @@ package com.example.fetchbeebackend.controller;
 
 import com.example.fetchbeebackend.common.Result;
 import com.example.fetchbeebackend.service.NotificationService;
+import com.example.fetchbeebackend.vo.CursorPageVO;
+import com.example.fetchbeebackend.vo.NotificationPollVO;
 import com.example.fetchbeebackend.vo.NotificationVO;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -36,16 +38,43 @@ public class NotificationController {
     }
     
     /**
-     * 查询所有通知列表（包括已读和未读）
+     * 查询未读通知数量（读取Redis计数器，不查询数据库）
+     */
+    @GetMapping("/unread-count")
+    public Result<Long> getUnreadCount(HttpServletRequest request) {
+        Long userId = (Long) request.getAttribute("userId");
+        log.debug("查询未读通知数量：userId={}", userId);
+        
+        return Result.success(notificationService.getUnreadCount(userId));
+    }
+    
+    /**
+     * 长轮询新通知
+     * 有比 lastSeenId 更新的通知时立即返回，否则最多挂起30秒，期间产生新通知时立即返回
+     */
+    @GetMapping("/poll")
+    public DeferredResult<Result<NotificationPollVO>> pollNotifications(HttpServletRequest request,
+                                                                        @RequestParam(required = false) Long lastSeenId) {
+        Long userId = (Long) request.getAttribute("userId");
+        log.debug("长轮询通知：userId={}, lastSeenId={}", userId, lastSeenId);
+        
+        return notificationService.pollNotifications(userId, lastSeenId, Result::success);
+    }
+    
+    /**
+     * 游标分页查询通知列表（包括已读和未读）
+     * 首页不传 cursor，之后传上一页返回的 nextCursor
      */
     @GetMapping("/list")
-    public Result<List<NotificationVO>> getAllNotifications(HttpServletRequest request) {
+    public Result<CursorPageVO<NotificationVO>> getNotificationPage(HttpServletRequest request,
+                                                                    @RequestParam(required = false) String cursor,
+                                                                    @RequestParam(required = false) Integer size) {
         Long userId = (Long) request.getAttribute("userId");
-        log.info("查询所有通知：userId={}", userId);
+        log.info("分页查询通知：userId={}, cursor={}, size={}", userId, cursor, size);
         
-        List<NotificationVO> notifications = notificationService.getAllNotifications(userId);
+        CursorPageVO<NotificationVO> page = notificationService.getNotificationPage(userId, cursor, size);
         
-        return Result.success(notifications);
+        return Result.success(page);
     }
     
     /**
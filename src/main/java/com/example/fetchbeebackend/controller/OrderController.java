@@ -2,7 +2,10 @@ package com.example.fetchbeebackend.controller;
 
 import com.example.fetchbeebackend.common.Result;
 import com.example.fetchbeebackend.dto.CreateOrderRequest;
+import com.example.fetchbeebackend.service.IdempotencyService;
+import com.example.fetchbeebackend.service.OrderGrabService;
 import com.example.fetchbeebackend.service.OrderService;
+import com.example.fetchbeebackend.vo.CursorPageVO;
 import com.example.fetchbeebackend.vo.OrderVO;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
@@ -25,8 +28,14 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
     
+    @Autowired
+    private OrderGrabService orderGrabService;
+    
+    @Autowired
+    private IdempotencyService idempotencyService;
+    
     /**
-     * 发布订单
+     * 发布订单（支持 Idempotency-Key 请求头，重试时返回首次的结果）
      */
     @PostMapping("/create")
     public Result<Map<String, Object>> createOrder(HttpServletRequest request,
@@ -34,16 +43,18 @@ public class OrderController {
         Long userId = (Long) request.getAttribute("userId");
         log.info("发布订单请求：userId={}", userId);
         
-        Long orderId = orderService.createOrder(userId, createRequest);
-        
-        Map<String, Object> data = new HashMap<>();
-        data.put("orderId", orderId);
-        
-        return Result.success("发布成功", data);
+        return idempotencyService.execute(request, createRequest, () -> {
+            Long orderId = orderService.createOrder(userId, createRequest);
+            
+            Map<String, Object> data = new HashMap<>();
+            data.put("orderId", orderId);
+            
+            return Result.success("发布成功", data);
+        });
     }
     
     /**
-     * 接单
+     * 接单（支持 Idempotency-Key 请求头）
      */
     @PostMapping("/{orderId}/accept")
     public Result<Void> acceptOrder(HttpServletRequest request,
@@ -51,9 +62,10 @@ public class OrderController {
         Long userId = (Long) request.getAttribute("userId");
         log.info("接单请求：userId={}, orderId={}", userId, orderId);
         
-        orderService.acceptOrder(orderId, userId);
-        
-        return Result.success("接单成功", null);
+        return idempotencyService.execute(request, null, () -> {
+            orderGrabService.acceptOrder(orderId, userId);
+            return Result.success("接单成功", null);
+        });
     }
     
     /**
@@ -71,7 +83,7 @@ public class OrderController {
     }
     
     /**
-     * 确认收货（发布者操作）
+     * 确认收货（发布者操作，支持 Idempotency-Key 请求头）
      */
     @PostMapping("/{orderId}/confirm")
     public Result<Void> confirmOrder(HttpServletRequest request,
@@ -79,9 +91,10 @@ public class OrderController {
         Long userId = (Long) request.getAttribute("userId");
         log.info("确认收货请求：userId={}, orderId={}", userId, orderId);
         
-        orderService.confirmOrder(orderId, userId);
-        
-        return Result.success("订单已完成", null);
+        return idempotencyService.execute(request, null, () -> {
+            orderService.confirmOrder(orderId, userId);
+            return Result.success("订单已完成", null);
+        });
     }
     
     /**
@@ -101,7 +114,7 @@ public class OrderController {
     }
     
     /**
-     * 取消订单
+     * 取消订单（支持 Idempotency-Key 请求头）
      */
     @PostMapping("/{orderId}/cancel")
     public Result<Void> cancelOrder(HttpServletRequest request,
@@ -110,9 +123,10 @@ public class OrderController {
         Long userId = (Long) request.getAttribute("userId");
         log.info("取消订单请求：userId={}, orderId={}, reason={}", userId, orderId, reason);
         
-        orderService.cancelOrder(orderId, userId, reason);
-        
-        return Result.success("订单已取消", null);
+        return idempotencyService.execute(request, null, () -> {
+            orderService.cancelOrder(orderId, userId, reason);
+            return Result.success("订单已取消", null);
+        });
     }
     
     /**
@@ -142,6 +156,21 @@ public class OrderController {
         return Result.success(orders);
     }
     
+    /**
+     * 游标分页查询待接单订单列表
+     */
+    @GetMapping("/pending/feed")
+    public Result<CursorPageVO<OrderVO>> getPendingOrderFeed(HttpServletRequest request,
+                                                            @RequestParam(required = false) String cursor,
+                                                            @RequestParam(required = false) Integer size) {
+        Long userId = (Long) request.getAttribute("userId");
+        log.info("游标分页查询待接单订单列表：userId={}, cursor={}, size={}", userId, cursor, size);
+        
+        CursorPageVO<OrderVO> page = orderService.getPendingOrderFeed(userId, cursor, size);
+        
+        return Result.success(page);
+    }
+    
     /**
      * 查询我发布的订单列表
      */
@@ -85,13 +85,31 @@ public class UserController {
      */
     @PostMapping("/logout")
     public Result<Void> logout(HttpServletRequest request) {
-        String token = request.getHeader("Authorization");
-        if (token != null && token.startsWith("Bearer ")) {
-            token = token.substring(7);
-        }
-        log.info("用户登出");
-        userService.logout(token);
+        Long userId = (Long) request.getAttribute("userId");
+        String sessionId = (String) request.getAttribute("sessionId");
+        log.info("用户登出：userId={}", userId);
+        userService.logout(userId, sessionId);
         return Result.success("登出成功", null);
     }
+    
+    /**
+     * 退出全部登录（所有设备）
+     */
+    @PostMapping("/logout-all")
+    public Result<Void> logoutAll(HttpServletRequest request) {
+        Long userId = (Long) request.getAttribute("userId");
+        log.info("用户退出全部登录：userId={}", userId);
+        userService.logoutAll(userId);
+        return Result.success("已退出全部登录", null);
+    }
+    
+    /**
+     * 查询当前登录的会话数
+     */
+    @GetMapping("/session-count")
+    public Result<Long> getSessionCount(HttpServletRequest request) {
+        Long userId = (Long) request.getAttribute("userId");
+        return Result.success(userService.getSessionCount(userId));
+    }
 }
 
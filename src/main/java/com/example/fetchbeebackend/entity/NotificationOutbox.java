@@ -0,0 +1,76 @@
+package com.example.fetchbeebackend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 通知发件箱事件实体类
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationOutbox {
+    
+    /**
+     * 事件ID
+     */
+    private Long id;
+    
+    /**
+     * 接收通知的用户ID
+     */
+    private Long userId;
+    
+    /**
+     * 通知类型
+     */
+    private String type;
+    
+    /**
+     * 通知标题
+     */
+    private String title;
+    
+    /**
+     * 通知内容
+     */
+    private String content;
+    
+    /**
+     * 关联订单ID
+     */
+    private Long orderId;
+    
+    /**
+     * 状态：0-待投递，1-已投递，2-投递失败
+     */
+    private Integer status;
+    
+    /**
+     * 已重试次数
+     */
+    private Integer retryCount;
+    
+    /**
+     * 下次投递时间
+     */
+    private LocalDateTime nextRetryTime;
+    
+    /**
+     * 最近一次投递失败原因
+     */
+    private String lastError;
+    
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createTime;
+    
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updateTime;
+}
@@ -144,5 +144,10 @@ public class Order {
      * 更新时间
      */
     private LocalDateTime updateTime;
+    
+    /**
+     * 版本号（乐观锁，每次更新加1）
+     */
+    private Integer version;
 }
 
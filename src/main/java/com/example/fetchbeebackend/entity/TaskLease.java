@@ -0,0 +1,41 @@
+package com.example.fetchbeebackend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 定时任务租约实体类
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskLease {
+    
+    /**
+     * 任务名称
+     */
+    private String taskName;
+    
+    /**
+     * 持有节点（主机名:进程号）
+     */
+    private String owner;
+    
+    /**
+     * 防护令牌（每次易主加1）
+     */
+    private Long fencingToken;
+    
+    /**
+     * 租约到期时间
+     */
+    private LocalDateTime expireTime;
+    
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updateTime;
+}
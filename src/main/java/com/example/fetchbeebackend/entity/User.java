@@ -91,5 +91,10 @@ public class User {
      * 更新时间
      */
     private LocalDateTime updateTime;
+
+    /**
+     * 版本号（乐观锁，每次更新加1；余额原子增减不修改版本号）
+     */
+    private Integer version;
 }
 
@@ -0,0 +1,91 @@
+package com.example.fetchbeebackend.enums;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 订单状态流转表
+ * 每种流转声明允许的来源状态和目标状态，由 OrderStateMachine 以比较并设置的方式执行
+ */
+public enum OrderTransition {
+
+    /**
+     * 接单：待接单 -> 已接单
+     */
+    ACCEPT("接单", OrderStatus.ACCEPTED, OrderStatus.PENDING),
+
+    /**
+     * 标记送达：已接单 -> 待确认
+     */
+    DELIVER("标记送达", OrderStatus.DELIVERED, OrderStatus.ACCEPTED),
+
+    /**
+     * 确认收货：待确认 -> 已完成
+     */
+    CONFIRM("确认收货", OrderStatus.COMPLETED, OrderStatus.DELIVERED),
+
+    /**
+     * 自动确认：待确认 -> 已完成
+     */
+    AUTO_CONFIRM("自动确认", OrderStatus.COMPLETED, OrderStatus.DELIVERED),
+
+    /**
+     * 接单者直接完成（旧接口）：已接单 -> 已完成
+     */
+    COMPLETE("完成订单", OrderStatus.COMPLETED, OrderStatus.ACCEPTED),
+
+    /**
+     * 发布者取消：待接单 -> 已取消
+     */
+    CANCEL("取消订单", OrderStatus.CANCELLED, OrderStatus.PENDING),
+
+    /**
+     * 过期取消：待接单 -> 已取消
+     */
+    EXPIRE("过期取消", OrderStatus.CANCELLED, OrderStatus.PENDING),
+
+    /**
+     * 维权通过取消：已接单/待确认 -> 已取消
+     */
+    RIGHTS_CANCEL("维权取消", OrderStatus.CANCELLED, OrderStatus.ACCEPTED, OrderStatus.DELIVERED);
+
+    private final String desc;
+    private final OrderStatus target;
+    private final Set<OrderStatus> sources;
+    private final List<Integer> sourceCodes;
+
+    OrderTransition(String desc, OrderStatus target, OrderStatus source, OrderStatus... moreSources) {
+        this.desc = desc;
+        this.target = target;
+        this.sources = Collections.unmodifiableSet(EnumSet.of(source, moreSources));
+        this.sourceCodes = this.sources.stream().map(OrderStatus::getCode).toList();
+    }
+
+    public String getDesc() {
+        return desc;
+    }
+
+    public OrderStatus getTarget() {
+        return target;
+    }
+
+    public Set<OrderStatus> getSources() {
+        return sources;
+    }
+
+    /**
+     * 来源状态码（用于条件更新）
+     */
+    public List<Integer> getSourceCodes() {
+        return sourceCodes;
+    }
+
+    /**
+     * 判断订单当前状态是否允许此流转
+     */
+    public boolean canFire(Integer status) {
+        return status != null && sourceCodes.contains(status);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.fetchbeebackend.exception;
+
+import com.example.fetchbeebackend.common.ResultCode;
+
+/**
+ * 并发修改异常（条件更新时版本号已变化）
+ * 由 OptimisticRetry 捕获后重新读取并重试，重试次数用尽后返回给调用方
+ */
+public class ConcurrentUpdateException extends BusinessException {
+
+    public ConcurrentUpdateException(String message) {
+        super(ResultCode.CONCURRENT_UPDATE, message);
+    }
+}
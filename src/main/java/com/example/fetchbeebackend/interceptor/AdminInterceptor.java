@@ -0,0 +1,42 @@
+package com.example.fetchbeebackend.interceptor;
+
+import com.example.fetchbeebackend.cache.RoleCache;
+import com.example.fetchbeebackend.common.ResultCode;
+import com.example.fetchbeebackend.exception.BusinessException;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * 管理员权限拦截器
+ * 在认证拦截器之后执行，根据请求属性中的用户ID检查管理员角色
+ */
+@Component
+public class AdminInterceptor implements HandlerInterceptor {
+
+    private static final int ADMIN_ROLE = 1;
+
+    @Autowired
+    private RoleCache roleCache;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if ("OPTIONS".equals(request.getMethod()) || request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+
+        Long userId = (Long) request.getAttribute("userId");
+        Integer role = roleCache.getRole(userId);
+        if (role == null) {
+            throw new BusinessException(ResultCode.USER_NOT_FOUND, "用户不存在");
+        }
+        if (role != ADMIN_ROLE) {
+            throw new BusinessException(ResultCode.FORBIDDEN, "无权限访问");
+        }
+
+        return true;
+    }
+}
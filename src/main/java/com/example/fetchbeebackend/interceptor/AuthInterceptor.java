@@ -1,9 +1,11 @@
 package com.example.fetchbeebackend.interceptor;
 
+import com.example.fetchbeebackend.cache.SessionCache;
 import com.example.fetchbeebackend.common.ResultCode;
 import com.example.fetchbeebackend.exception.BusinessException;
+import com.example.fetchbeebackend.utils.JwtPrincipal;
 import com.example.fetchbeebackend.utils.JwtUtil;
-import com.example.fetchbeebackend.utils.RedisUtil;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
@@ -23,10 +25,10 @@ public class AuthInterceptor implements HandlerInterceptor {
     private JwtUtil jwtUtil;
     
     @Autowired
-    private RedisUtil redisUtil;
+    private SessionCache sessionCache;
     
-    private static final String TOKEN_PREFIX = "token:";
     private static final String USER_ID_HEADER = "userId";
+    private static final String SESSION_ID_ATTRIBUTE = "sessionId";
     
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
@@ -35,6 +37,11 @@ public class AuthInterceptor implements HandlerInterceptor {
             return true;
         }
         
+        // 异步请求（长轮询）完成后的再次分派，首次分派时已完成认证
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        
         // 1. 从请求头获取Token
         String token = request.getHeader("Authorization");
         
@@ -47,19 +54,20 @@ public class AuthInterceptor implements HandlerInterceptor {
             token = token.substring(7);
         }
         
-        // 3. 验证Token
-        if (!jwtUtil.validateToken(token)) {
+        // 3. 验证Token（解析一次，得到已验证的用户信息）
+        JwtPrincipal principal = jwtUtil.parseToken(token);
+        if (principal == null) {
             throw new BusinessException(ResultCode.TOKEN_INVALID, "Token无效或已过期");
         }
         
-        // 4. 检查Redis中是否存在Token
-        if (!Boolean.TRUE.equals(redisUtil.hasKey(TOKEN_PREFIX + token))) {
+        // 4. 检查会话是否有效（本地缓存，未命中时查询Redis）
+        if (!sessionCache.isActive(principal.sessionId())) {
             throw new BusinessException(ResultCode.TOKEN_EXPIRED, "登录已过期，请重新登录");
         }
         
-        // 5. 从Token中获取用户ID，并设置到请求属性中
-        Long userId = jwtUtil.getUserIdFromToken(token);
-        request.setAttribute(USER_ID_HEADER, userId);
+        // 5. 将用户ID和会话ID设置到请求属性中
+        request.setAttribute(USER_ID_HEADER, principal.userId());
+        request.setAttribute(SESSION_ID_ATTRIBUTE, principal.sessionId());
         
         return true;
     }
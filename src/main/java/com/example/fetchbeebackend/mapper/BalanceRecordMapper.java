@@ -17,6 +17,12 @@ public interface BalanceRecordMapper {
      */
     int insert(BalanceRecord record);
     
+    /**
+     * 根据用户当前余额插入余额记录（变动前余额 = 当前余额 - amount，变动后余额 = 当前余额）
+     * 插入后回填 id、balanceBefore、balanceAfter
+     */
+    int insertFromUserBalance(BalanceRecord record);
+    
     /**
      * 根据用户ID查询余额记录列表
      */
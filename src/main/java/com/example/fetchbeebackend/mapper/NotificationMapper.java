@@ -1,6 +1,7 @@
 package com.example.fetchbeebackend.mapper;
 
 import com.example.fetchbeebackend.entity.Notification;
+import com.example.fetchbeebackend.vo.NotificationVO;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
@@ -23,14 +24,28 @@ public interface NotificationMapper {
     Notification findById(@Param("id") Long id);
     
     /**
-     * 查询用户的未读通知列表
+     * 查询用户最近的未读通知（含关联订单号，按创建时间倒序，最多limit条）
      */
-    List<Notification> findUnreadByUserId(@Param("userId") Long userId);
+    List<NotificationVO> findUnreadByUserId(@Param("userId") Long userId, @Param("limit") int limit);
     
     /**
-     * 查询用户的所有通知列表（包括已读和未读）
+     * 游标分页查询用户的通知（含关联订单号，按ID倒序，cursorId 为上一页最后一条的ID，首页传null）
      */
-    List<Notification> findByUserId(@Param("userId") Long userId);
+    List<NotificationVO> findPageByUserId(@Param("userId") Long userId,
+                                          @Param("cursorId") Long cursorId,
+                                          @Param("limit") int limit);
+    
+    /**
+     * 查询用户的通知中ID大于指定值的部分（含关联订单号，按ID升序，用于长轮询）
+     */
+    List<NotificationVO> findByUserIdAfterId(@Param("userId") Long userId,
+                                           @Param("afterId") Long afterId,
+                                           @Param("limit") int limit);
+    
+    /**
+     * 查询用户最新一条通知的ID
+     */
+    Long findLatestIdByUserId(@Param("userId") Long userId);
     
     /**
      * 查询用户的未读通知数量
@@ -38,7 +53,7 @@ public interface NotificationMapper {
     int countUnreadByUserId(@Param("userId") Long userId);
     
     /**
-     * 标记通知为已读
+     * 标记通知为已读（仅未读通知会被更新）
      */
     int markAsRead(@Param("id") Long id);
     
@@ -52,6 +67,11 @@ public interface NotificationMapper {
      */
     int deleteById(@Param("id") Long id);
     
+    /**
+     * 删除未读通知（已读时不删除）
+     */
+    int deleteUnreadById(@Param("id") Long id);
+    
     /**
      * 删除用户的所有通知
      */
@@ -0,0 +1,48 @@
+package com.example.fetchbeebackend.mapper;
+
+import com.example.fetchbeebackend.entity.NotificationOutbox;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 通知发件箱Mapper接口
+ */
+@Mapper
+public interface NotificationOutboxMapper {
+    
+    /**
+     * 插入事件
+     */
+    int insert(NotificationOutbox event);
+    
+    /**
+     * 按ID顺序查询可投递的事件
+     * 有事件正在等待重试的用户，其后续事件暂不投递，保证同一用户按顺序投递
+     */
+    List<NotificationOutbox> findDispatchable(@Param("now") LocalDateTime now, @Param("limit") int limit);
+    
+    /**
+     * 标记为已投递（仅待投递状态可更新）
+     */
+    int markDelivered(@Param("id") Long id);
+    
+    /**
+     * 记录投递失败，等待下次重试
+     */
+    int markRetry(@Param("id") Long id,
+                  @Param("nextRetryTime") LocalDateTime nextRetryTime,
+                  @Param("lastError") String lastError);
+    
+    /**
+     * 标记为投递失败（不再重试）
+     */
+    int markFailed(@Param("id") Long id, @Param("lastError") String lastError);
+    
+    /**
+     * 删除指定时间前已投递的事件
+     */
+    int deleteDeliveredBefore(@Param("beforeTime") LocalDateTime beforeTime, @Param("limit") int limit);
+}
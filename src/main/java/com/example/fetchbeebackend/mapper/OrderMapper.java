@@ -4,8 +4,8 @@ import com.example.fetchbeebackend.entity.Order;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -34,6 +34,13 @@ public interface OrderMapper {
      */
     List<Order> findPendingOrders();
     
+    /**
+     * 游标分页查询待接单订单列表（按 create_time DESC, id DESC 定位）
+     */
+    List<Order> findPendingOrdersByCursor(@Param("cursorTime") LocalDateTime cursorTime,
+                                          @Param("cursorId") Long cursorId,
+                                          @Param("limit") int limit);
+    
     /**
      * 查询用户发布的订单列表
      */
@@ -45,55 +52,62 @@ public interface OrderMapper {
     List<Order> findByReceiverId(@Param("receiverId") Long receiverId);
     
     /**
-     * 查询待确认且超过指定时间的订单列表（用于自动确认）
+     * 分批查询待确认且超过指定时间的订单（用于自动确认，仅返回id和deliver_time）
+     * 游标为上一批最后一条的送达时间和ID，首批传null
      */
-    List<Order> findDeliveredOrdersBeforeTime(@Param("beforeTime") LocalDateTime beforeTime);
+    List<Order> findDeliveredOrdersBeforeTime(@Param("beforeTime") LocalDateTime beforeTime,
+                                              @Param("cursorTime") LocalDateTime cursorTime,
+                                              @Param("cursorId") Long cursorId,
+                                              @Param("limit") int limit);
 
     /**
-     * 查询过期未接单的订单列表
+     * 分批查询过期未接单的订单（仅返回id和deadline）
+     * 游标为上一批最后一条的截止时间和ID，首批传null
      */
-    List<Order> findExpiredPendingOrders(@Param("now") LocalDateTime now);
+    List<Order> findExpiredPendingOrders(@Param("now") LocalDateTime now,
+                                         @Param("cursorTime") LocalDateTime cursorTime,
+                                         @Param("cursorId") Long cursorId,
+                                         @Param("limit") int limit);
 
     /**
-     * 更新订单状态
+     * 查询全部待接单订单的截止时间（仅返回id和deadline）
      */
-    int updateStatus(@Param("id") Long id, @Param("status") Integer status);
-    
-    /**
-     * 接单（更新接单者ID和状态）
-     */
-    int acceptOrder(@Param("id") Long id, @Param("receiverId") Long receiverId);
-    
-    /**
-     * 标记送达（更新状态为待确认）
-     */
-    int deliverOrder(@Param("id") Long id, @Param("deliverTime") LocalDateTime deliverTime);
-    
+    List<Order> findPendingOrderDeadlines();
+
     /**
-     * 完成订单
+     * 查询全部待确认订单的送达时间（仅返回id和deliver_time）
      */
-    int completeOrder(@Param("id") Long id, 
-                     @Param("actualReward") BigDecimal actualReward,
-                     @Param("completeTime") LocalDateTime completeTime);
-    
+    List<Order> findDeliveredOrderTimes();
+
     /**
-     * 取消订单
+     * 订单状态流转（仅当前状态属于来源状态时更新，版本号加1）
+     * @param from 来源状态
+     * @param to 目标状态
+     * @param changes 随状态一起写入的字段，可为null
+     * @return 更新行数，0表示状态已变化
      */
-    int cancelOrder(@Param("id") Long id, @Param("cancelReason") String cancelReason);
+    int transitionStatus(@Param("id") Long id,
+                         @Param("from") Collection<Integer> from,
+                         @Param("to") Integer to,
+                         @Param("changes") Order changes);
 
     /**
-     * 提交维权申请
+     * 提交维权申请（版本号未变化时才更新）
+     * @return 更新行数，0表示订单已被修改
      */
     int submitRightsProtection(@Param("id") Long id,
+                               @Param("version") Integer version,
                                @Param("rightsApplicant") String rightsApplicant,
                                @Param("rightsDescription") String rightsDescription,
                                @Param("rightsImage") String rightsImage,
                                @Param("rightsApplyTime") LocalDateTime rightsApplyTime);
 
     /**
-     * 审核维权申请
+     * 审核维权申请（仅维权状态为待审核且版本号未变化时更新）
+     * @return 更新行数，0表示订单已被修改
      */
     int reviewRightsProtection(@Param("id") Long id,
+                               @Param("version") Integer version,
                                @Param("rightsStatus") Integer rightsStatus,
                                @Param("rightsRemark") String rightsRemark,
                                @Param("rightsFundTo") String rightsFundTo,
@@ -0,0 +1,54 @@
+package com.example.fetchbeebackend.mapper;
+
+import com.example.fetchbeebackend.entity.TaskLease;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 定时任务租约Mapper接口
+ */
+@Mapper
+public interface TaskLeaseMapper {
+    
+    /**
+     * 初始化租约记录（已存在时忽略）
+     */
+    int insertIgnore(@Param("taskName") String taskName, @Param("now") LocalDateTime now);
+    
+    /**
+     * 获取或续约租约（租约已到期或本节点持有时成功，易主时防护令牌加1）
+     */
+    int tryAcquire(@Param("taskName") String taskName,
+                   @Param("owner") String owner,
+                   @Param("now") LocalDateTime now,
+                   @Param("expireTime") LocalDateTime expireTime);
+    
+    /**
+     * 释放租约（仅持有者且令牌一致时生效）
+     */
+    int release(@Param("taskName") String taskName,
+                @Param("owner") String owner,
+                @Param("fencingToken") Long fencingToken,
+                @Param("now") LocalDateTime now);
+    
+    /**
+     * 校验租约仍有效并加共享锁（需在事务中调用，锁持有到事务结束，期间其他节点无法抢占）
+     */
+    int lockIfValid(@Param("taskName") String taskName,
+                    @Param("owner") String owner,
+                    @Param("fencingToken") Long fencingToken,
+                    @Param("now") LocalDateTime now);
+    
+    /**
+     * 根据任务名称查询租约
+     */
+    TaskLease findByTaskName(@Param("taskName") String taskName);
+    
+    /**
+     * 查询全部租约
+     */
+    List<TaskLease> findAll();
+}
@@ -5,6 +5,8 @@ import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * 用户Mapper接口
@@ -13,14 +15,49 @@ import java.math.BigDecimal;
 public interface UserMapper {
     
     /**
-     * 根据用户名查询用户
+     * 根据用户名查询登录信息（个人资料、密码和状态）
      */
-    User findByUsername(@Param("username") String username);
+    User findLoginByUsername(@Param("username") String username);
     
     /**
-     * 根据ID查询用户
+     * 统计用户名数量
      */
-    User findById(@Param("id") Long id);
+    int countByUsername(@Param("username") String username);
+    
+    /**
+     * 根据ID查询个人资料（不含密码和认证信息）
+     */
+    User findProfileById(@Param("id") Long id);
+    
+    /**
+     * 根据ID查询下单/接单所需信息（用户名、地址、余额、账号状态、认证状态）
+     */
+    User findGateById(@Param("id") Long id);
+    
+    /**
+     * 根据ID查询学生认证信息
+     */
+    User findVerificationById(@Param("id") Long id);
+    
+    /**
+     * 根据ID查询密码和版本号
+     */
+    User findCredentialById(@Param("id") Long id);
+    
+    /**
+     * 根据ID查询版本号
+     */
+    Integer findVersionById(@Param("id") Long id);
+    
+    /**
+     * 统计ID数量（检查用户是否存在）
+     */
+    int countById(@Param("id") Long id);
+    
+    /**
+     * 根据ID批量查询用户名（仅返回id和username）
+     */
+    List<User> findUsernamesByIds(@Param("ids") Collection<Long> ids);
     
     /**
      * 插入用户
@@ -28,34 +65,65 @@ public interface UserMapper {
     int insert(User user);
     
     /**
-     * 更新用户信息
+     * 更新用户信息（版本号未变化时才更新）
+     * @return 更新行数，0表示用户已被修改
      */
     int update(User user);
     
     /**
-     * 更新密码
+     * 更新密码（版本号未变化时才更新）
+     * @return 更新行数，0表示用户已被修改
      */
-    int updatePassword(@Param("id") Long id, @Param("password") String password);
+    int updatePassword(@Param("id") Long id, @Param("version") Integer version, @Param("password") String password);
     
     /**
-     * 更新余额
+     * 原子增减余额（balance = balance + delta）
+     * minBalance 不为空时，仅在变动后余额不低于 minBalance 时更新
+     */
+    int changeBalance(@Param("id") Long id,
+                      @Param("delta") BigDecimal delta,
+                      @Param("minBalance") BigDecimal minBalance);
+
+    /**
+     * 查询余额
+     */
+    BigDecimal findBalanceById(@Param("id") Long id);
+
+    /**
+     * 按ID顺序分批查询内联头像（仅返回id和avatar）
+     */
+    List<User> findInlineAvatars(@Param("cursorId") Long cursorId, @Param("limit") int limit);
+
+    /**
+     * 替换头像（头像未被修改时才更新）
+     */
+    int replaceAvatar(@Param("id") Long id,
+                      @Param("oldAvatar") String oldAvatar,
+                      @Param("avatar") String avatar);
+
+    /**
+     * 查询角色
      */
-    int updateBalance(@Param("id") Long id, @Param("balance") BigDecimal balance);
+    Integer findRoleById(@Param("id") Long id);
 
     /**
-     * 提交学生认证
+     * 提交学生认证（版本号未变化时才更新）
+     * @return 更新行数，0表示用户已被修改
      */
-    int updateVerificationSubmit(@Param("id") Long id, @Param("verificationImage") String verificationImage);
+    int updateVerificationSubmit(@Param("id") Long id, @Param("version") Integer version,
+                                 @Param("verificationImage") String verificationImage);
 
     /**
-     * 审核学生认证
+     * 审核学生认证（版本号未变化时才更新）
+     * @return 更新行数，0表示用户已被修改
      */
-    int updateVerificationReview(@Param("id") Long id, @Param("verificationStatus") Integer verificationStatus,
+    int updateVerificationReview(@Param("id") Long id, @Param("version") Integer version,
+                                  @Param("verificationStatus") Integer verificationStatus,
                                   @Param("verificationRemark") String verificationRemark);
 
     /**
-     * 根据认证状态查询用户列表
+     * 根据认证状态查询用户列表（仅返回认证相关字段）
      */
-    java.util.List<User> findByVerificationStatus(@Param("verificationStatus") Integer verificationStatus);
+    List<User> findByVerificationStatus(@Param("verificationStatus") Integer verificationStatus);
 }
 
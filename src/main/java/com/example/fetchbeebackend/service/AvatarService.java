@@ -0,0 +1,210 @@
+package com.example.fetchbeebackend.service;
+
+import com.example.fetchbeebackend.common.ResultCode;
+import com.example.fetchbeebackend.exception.BusinessException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 头像存储服务
+ * 头像按内容的 SHA-256 保存在本地目录（头两位哈希作为子目录），相同内容只保存一份；
+ * 用户表只保存引用地址 /avatar/哈希.扩展名，文件写入后不再修改，可长期缓存。
+ * 保存前校验文件头与声明的图片类型一致，不保存客户端声明为图片的其他内容。
+ */
+@Slf4j
+@Service
+public class AvatarService {
+
+    /**
+     * 头像引用地址前缀
+     */
+    public static final String URL_PREFIX = "/avatar/";
+
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    /**
+     * 支持的图片类型：MIME类型 -> 扩展名
+     */
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            "image/png", "png",
+            "image/jpeg", "jpg",
+            "image/gif", "gif",
+            "image/webp", "webp");
+
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "png", "image/png",
+            "jpg", "image/jpeg",
+            "gif", "image/gif",
+            "webp", "image/webp");
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private static final byte[] JPEG_SIGNATURE = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+
+    private static final byte[] GIF87_SIGNATURE = {'G', 'I', 'F', '8', '7', 'a'};
+
+    private static final byte[] GIF89_SIGNATURE = {'G', 'I', 'F', '8', '9', 'a'};
+
+    private static final byte[] RIFF_SIGNATURE = {'R', 'I', 'F', 'F'};
+
+    private static final byte[] WEBP_SIGNATURE = {'W', 'E', 'B', 'P'};
+
+    @Value("${avatar.storage-dir:./data/avatars}")
+    private String storageDir;
+
+    @Value("${avatar.max-bytes:2097152}")
+    private int maxBytes;
+
+    /**
+     * 判断是否为内联图片（data URL）
+     */
+    public boolean isInline(String avatar) {
+        return avatar != null && avatar.startsWith("data:");
+    }
+
+    /**
+     * 保存 data URL 形式的头像
+     * @return 头像引用地址
+     */
+    public String storeDataUrl(String dataUrl) {
+        // 格式：data:image/png;base64,xxxx
+        int comma = dataUrl.indexOf(',');
+        if (comma < 0 || !dataUrl.substring(0, comma).endsWith(";base64")) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "头像格式不正确");
+        }
+        String mimeType = dataUrl.substring(5, comma - ";base64".length()).toLowerCase();
+        String ext = EXTENSIONS.get(mimeType);
+        if (ext == null) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "头像仅支持PNG、JPEG、GIF、WEBP格式");
+        }
+
+        // Base64 编码后约为原始大小的4/3，先按长度粗略拒绝过大的数据
+        if ((long) (dataUrl.length() - comma - 1) * 3 / 4 > maxBytes) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "头像不能超过" + maxBytes / 1024 + "KB");
+        }
+        byte[] content;
+        try {
+            content = Base64.getMimeDecoder().decode(dataUrl.substring(comma + 1));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "头像格式不正确");
+        }
+        return store(content, ext);
+    }
+
+    /**
+     * 按内容哈希保存头像，内容已存在时直接返回引用地址
+     * @return 头像引用地址
+     */
+    public String store(byte[] content, String ext) {
+        if (!matchesSignature(content, ext)) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "头像内容与图片格式不符");
+        }
+
+        String hash = sha256(content);
+        Path path = resolve(hash, ext);
+        if (!Files.exists(path)) {
+            try {
+                Files.createDirectories(path.getParent());
+                // 先写临时文件再原子移动，读取方不会看到写了一半的文件
+                Path tmp = Files.createTempFile(path.getParent(), hash, ".tmp");
+                try {
+                    Files.write(tmp, content);
+                    moveIntoPlace(tmp, path);
+                } finally {
+                    Files.deleteIfExists(tmp);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("保存头像失败：" + hash, e);
+            }
+            log.debug("保存头像：hash={}, size={}", hash, content.length);
+        }
+        return URL_PREFIX + hash + "." + ext;
+    }
+
+    /**
+     * 查找头像文件
+     * @return 哈希或扩展名不合法、文件不存在时返回null
+     */
+    public Path find(String hash, String ext) {
+        if (!HASH_PATTERN.matcher(hash).matches() || !CONTENT_TYPES.containsKey(ext)) {
+            return null;
+        }
+        Path path = resolve(hash, ext);
+        return Files.exists(path) ? path : null;
+    }
+
+    /**
+     * 根据扩展名获取MIME类型
+     */
+    public String getContentType(String ext) {
+        return CONTENT_TYPES.get(ext);
+    }
+
+    /**
+     * 校验文件头（PNG、JPEG、GIF、WEBP 的魔数）与扩展名一致
+     */
+    static boolean matchesSignature(byte[] content, String ext) {
+        return switch (ext) {
+            case "png" -> startsWith(content, 0, PNG_SIGNATURE);
+            case "jpg" -> startsWith(content, 0, JPEG_SIGNATURE);
+            case "gif" -> startsWith(content, 0, GIF87_SIGNATURE) || startsWith(content, 0, GIF89_SIGNATURE);
+            // RIFF + 4字节长度 + WEBP
+            case "webp" -> startsWith(content, 0, RIFF_SIGNATURE) && startsWith(content, 8, WEBP_SIGNATURE);
+            default -> false;
+        };
+    }
+
+    private static boolean startsWith(byte[] content, int offset, byte[] signature) {
+        if (content.length < offset + signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if (content[offset + i] != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Path resolve(String hash, String ext) {
+        return Paths.get(storageDir, hash.substring(0, 2), hash + "." + ext);
+    }
+
+    private void moveIntoPlace(Path tmp, Path path) throws IOException {
+        try {
+            Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // 其他请求已写入相同内容
+        } catch (AtomicMoveNotSupportedException e) {
+            try {
+                Files.move(tmp, path);
+            } catch (FileAlreadyExistsException ignored) {
+                // 其他请求已写入相同内容
+            }
+        }
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
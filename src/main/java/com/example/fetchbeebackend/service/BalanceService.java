@@ -1,8 +1,8 @@
 package com.example.fetchbeebackend.service;
 
+import com.example.fetchbeebackend.cache.UserCache;
 import com.example.fetchbeebackend.common.ResultCode;
 import com.example.fetchbeebackend.entity.BalanceRecord;
-import com.example.fetchbeebackend.entity.User;
 import com.example.fetchbeebackend.enums.BalanceType;
 import com.example.fetchbeebackend.exception.BusinessException;
 import com.example.fetchbeebackend.mapper.BalanceRecordMapper;
@@ -16,6 +16,8 @@ import java.math.BigDecimal;
 
 /**
  * 余额服务类
+ * 余额通过 balance = balance + delta 原子更新，不在内存中计算新余额，并发收入不会丢失；
+ * 余额记录由 INSERT ... SELECT 根据更新后的余额生成，变动前后余额回填到返回的记录中。
  */
 @Slf4j
 @Service
@@ -27,114 +29,87 @@ public class BalanceService {
     @Autowired
     private BalanceRecordMapper balanceRecordMapper;
     
+    @Autowired
+    private UserCache userCache;
+    
     /**
      * 扣款（发布订单时）
+     * @return 余额变动记录（含变动前后余额）
      */
     @Transactional(rollbackFor = Exception.class)
-    public void deduct(Long userId, BigDecimal amount, Long orderId, String remark) {
-        // 1. 查询用户
-        User user = userMapper.findById(userId);
-        if (user == null) {
-            throw new BusinessException(ResultCode.USER_NOT_FOUND, "用户不存在");
-        }
-        
-        // 2. 检查余额是否充足
-        if (user.getBalance().compareTo(amount) < 0) {
-            throw new BusinessException(ResultCode.INSUFFICIENT_BALANCE, "余额不足");
-        }
-        
-        // 3. 扣除余额
-        BigDecimal balanceBefore = user.getBalance();
-        BigDecimal balanceAfter = balanceBefore.subtract(amount);
-        
-        int result = userMapper.updateBalance(userId, balanceAfter);
+    public BalanceRecord deduct(Long userId, BigDecimal amount, Long orderId, String remark) {
+        // 1. 扣除余额（余额不足时不更新）
+        int result = userMapper.changeBalance(userId, amount.negate(), BigDecimal.ZERO);
         if (result <= 0) {
-            throw new BusinessException("扣款失败");
+            BigDecimal balance = userMapper.findBalanceById(userId);
+            if (balance == null) {
+                throw new BusinessException(ResultCode.USER_NOT_FOUND, "用户不存在");
+            }
+            throw new BusinessException(ResultCode.INSUFFICIENT_BALANCE, "余额不足");
         }
         
-        // 4. 记录余额变动
-        BalanceRecord record = new BalanceRecord();
-        record.setUserId(userId);
-        record.setAmount(amount.negate()); // 负数表示支出
-        record.setBalanceBefore(balanceBefore);
-        record.setBalanceAfter(balanceAfter);
-        record.setType(BalanceType.ORDER_DEDUCT.getCode());
-        record.setOrderId(orderId);
-        record.setRemark(remark);
+        // 2. 记录余额变动（负数表示支出）
+        BalanceRecord record = insertRecord(userId, amount.negate(), BalanceType.ORDER_DEDUCT, orderId, remark);
         
-        balanceRecordMapper.insert(record);
-        
-        log.info("扣款成功：userId={}, amount={}, orderId={}", userId, amount, orderId);
+        log.info("扣款成功：userId={}, amount={}, orderId={}, balanceAfter={}",
+                userId, amount, orderId, record.getBalanceAfter());
+        return record;
     }
     
     /**
      * 转账（完成订单时给接单者）
+     * @return 余额变动记录（含变动前后余额）
      */
     @Transactional(rollbackFor = Exception.class)
-    public void transfer(Long userId, BigDecimal amount, Long orderId, String remark) {
-        // 1. 查询用户
-        User user = userMapper.findById(userId);
-        if (user == null) {
-            throw new BusinessException(ResultCode.USER_NOT_FOUND, "用户不存在");
-        }
-        
-        // 2. 增加余额
-        BigDecimal balanceBefore = user.getBalance();
-        BigDecimal balanceAfter = balanceBefore.add(amount);
-        
-        int result = userMapper.updateBalance(userId, balanceAfter);
+    public BalanceRecord transfer(Long userId, BigDecimal amount, Long orderId, String remark) {
+        // 1. 增加余额
+        int result = userMapper.changeBalance(userId, amount, null);
         if (result <= 0) {
-            throw new BusinessException("转账失败");
+            throw new BusinessException(ResultCode.USER_NOT_FOUND, "用户不存在");
         }
         
-        // 3. 记录余额变动
-        BalanceRecord record = new BalanceRecord();
-        record.setUserId(userId);
-        record.setAmount(amount); // 正数表示收入
-        record.setBalanceBefore(balanceBefore);
-        record.setBalanceAfter(balanceAfter);
-        record.setType(BalanceType.ORDER_INCOME.getCode());
-        record.setOrderId(orderId);
-        record.setRemark(remark);
-        
-        balanceRecordMapper.insert(record);
+        // 2. 记录余额变动（正数表示收入）
+        BalanceRecord record = insertRecord(userId, amount, BalanceType.ORDER_INCOME, orderId, remark);
         
-        log.info("转账成功：userId={}, amount={}, orderId={}", userId, amount, orderId);
+        log.info("转账成功：userId={}, amount={}, orderId={}, balanceAfter={}",
+                userId, amount, orderId, record.getBalanceAfter());
+        return record;
     }
     
     /**
      * 退款（取消订单时）
+     * @return 余额变动记录（含变动前后余额）
      */
     @Transactional(rollbackFor = Exception.class)
-    public void refund(Long userId, BigDecimal amount, Long orderId, String remark) {
-        // 1. 查询用户
-        User user = userMapper.findById(userId);
-        if (user == null) {
+    public BalanceRecord refund(Long userId, BigDecimal amount, Long orderId, String remark) {
+        // 1. 增加余额
+        int result = userMapper.changeBalance(userId, amount, null);
+        if (result <= 0) {
             throw new BusinessException(ResultCode.USER_NOT_FOUND, "用户不存在");
         }
         
-        // 2. 增加余额
-        BigDecimal balanceBefore = user.getBalance();
-        BigDecimal balanceAfter = balanceBefore.add(amount);
+        // 2. 记录余额变动（正数表示收入）
+        BalanceRecord record = insertRecord(userId, amount, BalanceType.ORDER_REFUND, orderId, remark);
         
-        int result = userMapper.updateBalance(userId, balanceAfter);
-        if (result <= 0) {
-            throw new BusinessException("退款失败");
-        }
-        
-        // 3. 记录余额变动
+        log.info("退款成功：userId={}, amount={}, orderId={}, balanceAfter={}",
+                userId, amount, orderId, record.getBalanceAfter());
+        return record;
+    }
+    
+    /**
+     * 根据更新后的余额插入余额记录（用户行已被本事务的更新锁定）
+     */
+    private BalanceRecord insertRecord(Long userId, BigDecimal amount, BalanceType type, Long orderId, String remark) {
         BalanceRecord record = new BalanceRecord();
         record.setUserId(userId);
-        record.setAmount(amount); // 正数表示收入
-        record.setBalanceBefore(balanceBefore);
-        record.setBalanceAfter(balanceAfter);
-        record.setType(BalanceType.ORDER_REFUND.getCode());
+        record.setAmount(amount);
+        record.setType(type.getCode());
         record.setOrderId(orderId);
         record.setRemark(remark);
         
-        balanceRecordMapper.insert(record);
-        
-        log.info("退款成功：userId={}, amount={}, orderId={}", userId, amount, orderId);
+        balanceRecordMapper.insertFromUserBalance(record);
+        // 余额已变化，提交后清除用户资料缓存
+        userCache.invalidate(userId);
+        return record;
     }
 }
-
@@ -0,0 +1,238 @@
+package com.example.fetchbeebackend.service;
+
+import com.example.fetchbeebackend.common.Result;
+import com.example.fetchbeebackend.common.ResultCode;
+import com.example.fetchbeebackend.exception.BusinessException;
+import com.example.fetchbeebackend.utils.RedisUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 幂等请求服务
+ * 客户端在请求头 Idempotency-Key 中携带唯一键，同一用户同一键的请求只执行一次：
+ * 首个请求在 Redis 中占位（idempotency:用户ID:键，处理中），执行成功后保存响应，重试时直接返回保存的响应；
+ * 首个请求仍在处理时，重复请求轮询等待其结果；首个请求失败时删除占位，重试会重新执行。
+ * 占位记录带有本次请求的随机令牌，保存响应和删除占位都先比较令牌：占位过期后被其他请求重新占位时，
+ * 原请求不会覆盖或删除新的占位。
+ * 同一个键携带不同的请求内容（方法、路径、参数、请求体的摘要不同）时拒绝处理。
+ * 未携带请求头时直接执行。
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final String KEY_PREFIX = "idempotency:";
+
+    private static final int MAX_KEY_LENGTH = 64;
+
+    private static final String STATE_PROCESSING = "processing";
+
+    private static final String STATE_DONE = "done";
+
+    /**
+     * 重复请求轮询间隔（毫秒）
+     */
+    private static final long POLL_INTERVAL_MS = 50;
+
+    /**
+     * 仍由指定令牌占位时保存响应记录（ARGV：令牌、记录、过期秒数）
+     */
+    private static final RedisScript<Long> COMPLETE = new DefaultRedisScript<>(
+            "local value = redis.call('GET', KEYS[1]) "
+                    + "if value and cjson.decode(value).token == ARGV[1] then "
+                    + "redis.call('SET', KEYS[1], ARGV[2], 'EX', ARGV[3]) "
+                    + "return 1 "
+                    + "end "
+                    + "return 0", Long.class);
+
+    /**
+     * 仍由指定令牌占位时删除
+     */
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "local value = redis.call('GET', KEYS[1]) "
+                    + "if value and cjson.decode(value).token == ARGV[1] then "
+                    + "return redis.call('DEL', KEYS[1]) "
+                    + "end "
+                    + "return 0", Long.class);
+
+    /**
+     * 响应保存时长（秒）
+     */
+    @Value("${idempotency.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    /**
+     * 处理中占位的时长（秒），超过后视为首个请求已中断
+     */
+    @Value("${idempotency.processing-ttl-seconds:60}")
+    private long processingTtlSeconds;
+
+    /**
+     * 重复请求等待首个请求完成的最长时间（毫秒）
+     */
+    @Value("${idempotency.wait-ms:10000}")
+    private long waitMs;
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 按幂等键执行请求
+     * @param body 请求体（参与请求摘要计算），没有请求体时传null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Result<T> execute(HttpServletRequest request, Object body, Supplier<Result<T>> action) {
+        String idempotencyKey = request.getHeader(HEADER);
+        if (!StringUtils.hasText(idempotencyKey)) {
+            return action.get();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "Idempotency-Key 长度不能超过" + MAX_KEY_LENGTH);
+        }
+
+        Long userId = (Long) request.getAttribute("userId");
+        String key = KEY_PREFIX + userId + ":" + idempotencyKey;
+        String fingerprint = fingerprint(request, body);
+        String token = UUID.randomUUID().toString();
+        String processing = toJson(record(token, fingerprint, STATE_PROCESSING, null));
+
+        long deadline = System.currentTimeMillis() + waitMs;
+        while (true) {
+            // 1. 占位成功：执行请求并保存响应
+            if (Boolean.TRUE.equals(redisUtil.setStringIfAbsent(key, processing, processingTtlSeconds, TimeUnit.SECONDS))) {
+                count("executed");
+                return executeAndStore(key, token, fingerprint, action);
+            }
+
+            // 2. 已有记录：校验请求摘要，已完成则返回保存的响应
+            String value = redisUtil.getString(key);
+            if (value != null) {
+                JsonNode stored = fromJson(value);
+                if (!fingerprint.equals(stored.path("fingerprint").asText())) {
+                    count("mismatch");
+                    throw new BusinessException(ResultCode.PARAM_ERROR, "Idempotency-Key 已用于其他请求");
+                }
+                if (STATE_DONE.equals(stored.path("state").asText())) {
+                    count("replayed");
+                    return objectMapper.convertValue(stored.get("response"), Result.class);
+                }
+            }
+
+            // 3. 首个请求仍在处理中：等待（记录被删除时下一轮重新占位）
+            if (System.currentTimeMillis() >= deadline) {
+                count("timeout");
+                throw new BusinessException(ResultCode.DUPLICATE_REQUEST, "请求正在处理中，请稍后重试");
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BusinessException(ResultCode.DUPLICATE_REQUEST, "请求正在处理中，请稍后重试");
+            }
+        }
+    }
+
+    private <T> Result<T> executeAndStore(String key, String token, String fingerprint, Supplier<Result<T>> action) {
+        Result<T> result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            // 执行失败不保存结果，允许客户端重试
+            release(key, token);
+            throw e;
+        }
+
+        try {
+            Long stored = redisUtil.execute(COMPLETE, List.of(key), token,
+                    toJson(record(token, fingerprint, STATE_DONE, result)), String.valueOf(ttlSeconds));
+            if (stored == null || stored == 0) {
+                // 执行时间超过占位时长，占位已过期或被其他请求重新占位
+                count("expired");
+                log.warn("幂等请求占位已失效，未保存响应：key={}", key);
+            }
+        } catch (Exception e) {
+            // 保存失败时占位会在到期后失效，期间的重试会等待到超时
+            log.warn("保存幂等请求响应失败：key={}, error={}", key, e.getMessage());
+        }
+        return result;
+    }
+
+    private void release(String key, String token) {
+        try {
+            redisUtil.execute(RELEASE, List.of(key), token);
+        } catch (Exception e) {
+            log.warn("删除幂等请求占位失败：key={}, error={}", key, e.getMessage());
+        }
+    }
+
+    private ObjectNode record(String token, String fingerprint, String state, Object response) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("token", token);
+        node.put("fingerprint", fingerprint);
+        node.put("state", state);
+        if (response != null) {
+            node.set("response", objectMapper.valueToTree(response));
+        }
+        return node;
+    }
+
+    private String fingerprint(HttpServletRequest request, Object body) {
+        String raw = request.getMethod() + " " + request.getRequestURI()
+                + "?" + (request.getQueryString() == null ? "" : request.getQueryString())
+                + "\n" + (body == null ? "" : toJson(body));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(raw.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private JsonNode fromJson(String value) {
+        try {
+            return objectMapper.readTree(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("idempotency.requests", "outcome", outcome).increment();
+    }
+}
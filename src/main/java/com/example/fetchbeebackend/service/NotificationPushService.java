@@ -0,0 +1,174 @@
+package com.example.fetchbeebackend.service;
+
+import com.example.fetchbeebackend.mapper.NotificationMapper;
+import com.example.fetchbeebackend.utils.RedisUtil;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 通知推送服务
+ * Redis 中保存每个用户最新一条通知的ID（notification:latest:用户ID），长轮询请求据此判断是否有新通知；
+ * 没有新通知时请求挂起在本节点，新通知产生后通过 Redis 发布/订阅广播用户ID，各节点唤醒该用户挂起的请求。
+ */
+@Slf4j
+@Service
+public class NotificationPushService {
+
+    private static final String LATEST_KEY_PREFIX = "notification:latest:";
+
+    private static final String CHANNEL = "notification:push";
+
+    /**
+     * 最新通知ID的过期时间（秒）
+     */
+    private static final long LATEST_TTL_SECONDS = 86400;
+
+    /**
+     * 仅在新值更大时更新最新通知ID，并刷新过期时间
+     */
+    private static final RedisScript<Long> SET_IF_GREATER = new DefaultRedisScript<>(
+            "local current = tonumber(redis.call('GET', KEYS[1])) "
+                    + "local value = tonumber(ARGV[1]) "
+                    + "if current == nil or value > current then "
+                    + "redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2]) "
+                    + "return value "
+                    + "end "
+                    + "return current", Long.class);
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private NotificationMapper notificationMapper;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 本节点挂起的请求：用户ID -> 唤醒回调
+     */
+    private final Map<Long, Set<Runnable>> waiters = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void subscribe() {
+        redisMessageListenerContainer.addMessageListener((message, pattern) -> {
+            try {
+                wake(Long.valueOf(new String(message.getBody(), StandardCharsets.UTF_8)));
+            } catch (Exception e) {
+                log.warn("处理通知推送消息失败：error={}", e.getMessage());
+            }
+        }, new ChannelTopic(CHANNEL));
+
+        Gauge.builder("notification.poll.waiting", this, NotificationPushService::getWaitingCount)
+                .description("本节点挂起的通知长轮询请求数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 发布新通知（更新最新通知ID并广播到所有节点）
+     */
+    public void publish(Long userId, Long notificationId) {
+        try {
+            redisUtil.execute(SET_IF_GREATER, List.of(LATEST_KEY_PREFIX + userId),
+                    String.valueOf(notificationId), String.valueOf(LATEST_TTL_SECONDS));
+            redisUtil.publish(CHANNEL, String.valueOf(userId));
+        } catch (Exception e) {
+            // 推送失败时删除最新ID，下次轮询从数据库读取；挂起的请求在超时后返回
+            log.warn("发布通知推送失败：userId={}, error={}", userId, e.getMessage());
+            try {
+                redisUtil.delete(LATEST_KEY_PREFIX + userId);
+            } catch (Exception ignored) {
+                // Redis 不可用时忽略
+            }
+        }
+    }
+
+    /**
+     * 查询用户最新一条通知的ID（Redis中不存在时从数据库读取并回填），没有通知时返回0
+     */
+    public long getLatestId(Long userId) {
+        String key = LATEST_KEY_PREFIX + userId;
+        try {
+            String value = redisUtil.getString(key);
+            if (value != null) {
+                return Long.parseLong(value);
+            }
+        } catch (Exception e) {
+            log.warn("读取最新通知ID失败，改为从数据库读取：userId={}, error={}", userId, e.getMessage());
+            return latestIdFromDb(userId);
+        }
+
+        long latestId = latestIdFromDb(userId);
+        try {
+            redisUtil.setStringIfAbsent(key, String.valueOf(latestId), LATEST_TTL_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("回填最新通知ID失败：userId={}, error={}", userId, e.getMessage());
+        }
+        return latestId;
+    }
+
+    /**
+     * 注册挂起请求的唤醒回调
+     */
+    public void register(Long userId, Runnable callback) {
+        waiters.computeIfAbsent(userId, key -> ConcurrentHashMap.newKeySet()).add(callback);
+    }
+
+    /**
+     * 移除唤醒回调（请求完成或超时后调用）
+     */
+    public void unregister(Long userId, Runnable callback) {
+        waiters.computeIfPresent(userId, (key, callbacks) -> {
+            callbacks.remove(callback);
+            return callbacks.isEmpty() ? null : callbacks;
+        });
+    }
+
+    /**
+     * 本节点挂起的请求数
+     */
+    public int getWaitingCount() {
+        int count = 0;
+        for (Set<Runnable> callbacks : waiters.values()) {
+            count += callbacks.size();
+        }
+        return count;
+    }
+
+    private void wake(Long userId) {
+        Set<Runnable> callbacks = waiters.remove(userId);
+        if (callbacks == null) {
+            return;
+        }
+        for (Runnable callback : callbacks) {
+            try {
+                callback.run();
+            } catch (Exception e) {
+                log.warn("唤醒通知长轮询请求失败：userId={}, error={}", userId, e.getMessage());
+            }
+        }
+    }
+
+    private long latestIdFromDb(Long userId) {
+        Long latestId = notificationMapper.findLatestIdByUserId(userId);
+        return latestId == null ? 0L : latestId;
+    }
+}
@@ -1,23 +1,28 @@
 package com.example.fetchbeebackend.service;
 
+import com.example.fetchbeebackend.cache.UnreadCounter;
 import com.example.fetchbeebackend.common.ResultCode;
 import com.example.fetchbeebackend.entity.Notification;
-import com.example.fetchbeebackend.entity.Order;
+import com.example.fetchbeebackend.entity.NotificationOutbox;
 import com.example.fetchbeebackend.enums.NotificationType;
 import com.example.fetchbeebackend.exception.BusinessException;
 import com.example.fetchbeebackend.mapper.NotificationMapper;
-import com.example.fetchbeebackend.mapper.OrderMapper;
+import com.example.fetchbeebackend.mapper.NotificationOutboxMapper;
+import com.example.fetchbeebackend.utils.TransactionUtil;
+import com.example.fetchbeebackend.vo.CursorPageVO;
+import com.example.fetchbeebackend.vo.NotificationPollVO;
 import com.example.fetchbeebackend.vo.NotificationVO;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * 通知服务类
@@ -30,39 +35,105 @@ public class NotificationService {
     private NotificationMapper notificationMapper;
     
     @Autowired
-    private OrderMapper orderMapper;
+    private NotificationOutboxMapper notificationOutboxMapper;
+    
+    @Autowired
+    private UnreadCounter unreadCounter;
+    
+    @Autowired
+    private NotificationPushService notificationPushService;
+    
+    /**
+     * 长轮询挂起时间（毫秒）
+     */
+    private static final long POLL_TIMEOUT_MS = 30000;
+    
+    /**
+     * 长轮询单次最多返回的通知数
+     */
+    private static final int POLL_MAX_SIZE = 50;
+    
+    /**
+     * 未读通知列表最多返回的条数（未读数量以计数器为准）
+     */
+    private static final int UNREAD_LIST_LIMIT = 100;
+    
+    /**
+     * 通知列表默认每页条数
+     */
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    
+    /**
+     * 通知列表每页最大条数
+     */
+    private static final int MAX_PAGE_SIZE = 50;
     
     /**
      * 创建通知
+     * 写入通知发件箱，随调用方事务一起提交，由 NotificationDispatchTask 异步投递为通知
      */
     @Transactional(rollbackFor = Exception.class)
     public void createNotification(Long userId, NotificationType type, String title, 
                                    String content, Long orderId) {
+        NotificationOutbox event = new NotificationOutbox();
+        event.setUserId(userId);
+        event.setType(type.getCode());
+        event.setTitle(title);
+        event.setContent(content);
+        event.setOrderId(orderId);
+        
+        int result = notificationOutboxMapper.insert(event);
+        if (result <= 0) {
+            log.error("创建通知失败：userId={}, type={}", userId, type.getCode());
+            throw new BusinessException("创建通知失败");
+        }
+        
+        log.debug("通知已写入发件箱：eventId={}, userId={}, type={}, orderId={}", 
+                event.getId(), userId, type.getCode(), orderId);
+    }
+    
+    /**
+     * 投递发件箱事件，生成通知
+     * @return 是否投递成功（事件已被投递时返回false）
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public boolean deliver(NotificationOutbox event) {
+        // 1. 先更新事件状态，锁定事件行，避免重复投递
+        if (notificationOutboxMapper.markDelivered(event.getId()) <= 0) {
+            return false;
+        }
+        
+        // 2. 插入通知
         Notification notification = new Notification();
-        notification.setUserId(userId);
-        notification.setType(type.getCode());
-        notification.setTitle(title);
-        notification.setContent(content);
-        notification.setOrderId(orderId);
+        notification.setUserId(event.getUserId());
+        notification.setType(event.getType());
+        notification.setTitle(event.getTitle());
+        notification.setContent(event.getContent());
+        notification.setOrderId(event.getOrderId());
         notification.setIsRead(0); // 默认未读
         
         int result = notificationMapper.insert(notification);
         if (result <= 0) {
-            log.error("创建通知失败：userId={}, type={}", userId, type.getCode());
             throw new BusinessException("创建通知失败");
         }
+        Long userId = event.getUserId();
+        Long notificationId = notification.getId();
+        TransactionUtil.afterCommit(() -> {
+            unreadCounter.increment(userId);
+            notificationPushService.publish(userId, notificationId);
+        });
         
-        log.info("创建通知成功：userId={}, type={}, orderId={}", userId, type.getCode(), orderId);
+        log.info("创建通知成功：userId={}, type={}, orderId={}", 
+                event.getUserId(), event.getType(), event.getOrderId());
+        return true;
     }
     
     /**
      * 查询未读通知列表和数量
      */
     public Map<String, Object> getUnreadNotifications(Long userId) {
-        List<Notification> notifications = notificationMapper.findUnreadByUserId(userId);
-        int unreadCount = notificationMapper.countUnreadByUserId(userId);
-        
-        List<NotificationVO> voList = convertToVOList(notifications);
+        List<NotificationVO> voList = notificationMapper.findUnreadByUserId(userId, UNREAD_LIST_LIMIT);
+        long unreadCount = unreadCounter.get(userId);
         
         Map<String, Object> result = new HashMap<>();
         result.put("unreadCount", unreadCount);
@@ -72,11 +143,58 @@ public class NotificationService {
     }
     
     /**
-     * 查询所有通知列表
+     * 查询未读通知数量（优先读取Redis计数器）
+     */
+    public long getUnreadCount(Long userId) {
+        return unreadCounter.get(userId);
+    }
+    
+    /**
+     * 长轮询新通知
+     * 有ID大于 lastSeenId 的通知时立即返回，否则挂起请求，直到有新通知或超时（超时返回空列表）。
+     * lastSeenId 为空时立即返回当前最新通知ID，客户端以此开始轮询。
+     * @param wrapper 结果包装函数（如 Result::success）
+     */
+    public <T> DeferredResult<T> pollNotifications(Long userId, Long lastSeenId,
+                                                   Function<NotificationPollVO, T> wrapper) {
+        DeferredResult<T> deferredResult = new DeferredResult<>(POLL_TIMEOUT_MS);
+        if (lastSeenId == null) {
+            long latestId = notificationPushService.getLatestId(userId);
+            deferredResult.setResult(wrapper.apply(
+                    new NotificationPollVO(new ArrayList<>(), latestId, unreadCounter.get(userId))));
+            return deferredResult;
+        }
+        
+        // 先注册再检查，避免检查之后、注册之前到达的通知被漏掉
+        Runnable callback = () -> deferredResult.setResult(wrapper.apply(buildPollResult(userId, lastSeenId)));
+        notificationPushService.register(userId, callback);
+        deferredResult.onCompletion(() -> notificationPushService.unregister(userId, callback));
+        deferredResult.onTimeout(() -> deferredResult.setResult(wrapper.apply(
+                new NotificationPollVO(new ArrayList<>(), lastSeenId, unreadCounter.get(userId)))));
+        
+        if (notificationPushService.getLatestId(userId) > lastSeenId) {
+            deferredResult.setResult(wrapper.apply(buildPollResult(userId, lastSeenId)));
+        }
+        return deferredResult;
+    }
+    
+    /**
+     * 游标分页查询通知列表（包括已读和未读，按时间倒序）
+     * @param cursor 上一页返回的游标，首页传null
      */
-    public List<NotificationVO> getAllNotifications(Long userId) {
-        List<Notification> notifications = notificationMapper.findByUserId(userId);
-        return convertToVOList(notifications);
+    public CursorPageVO<NotificationVO> getNotificationPage(Long userId, String cursor, Integer size) {
+        int pageSize = size == null || size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+        Long cursorId = decodeCursor(cursor);
+        
+        // 多查一条判断是否还有下一页
+        List<NotificationVO> list = notificationMapper.findPageByUserId(userId, cursorId, pageSize + 1);
+        boolean hasMore = list.size() > pageSize;
+        if (hasMore) {
+            list = new ArrayList<>(list.subList(0, pageSize));
+        }
+        String nextCursor = hasMore ? String.valueOf(list.get(list.size() - 1).getId()) : null;
+        
+        return new CursorPageVO<>(list, nextCursor, hasMore);
     }
     
     /**
@@ -95,10 +213,13 @@ public class NotificationService {
             throw new BusinessException(ResultCode.FORBIDDEN, "无权操作此通知");
         }
         
-        // 3. 标记为已读
+        // 3. 标记为已读（已读的通知不重复处理）
+        if (notification.getIsRead() != null && notification.getIsRead() == 1) {
+            return;
+        }
         int result = notificationMapper.markAsRead(notificationId);
-        if (result <= 0) {
-            throw new BusinessException("标记已读失败");
+        if (result > 0) {
+            TransactionUtil.afterCommit(() -> unreadCounter.decrement(userId));
         }
         
         log.info("标记通知为已读：notificationId={}, userId={}", notificationId, userId);
@@ -110,6 +231,9 @@ public class NotificationService {
     @Transactional(rollbackFor = Exception.class)
     public void markAllAsRead(Long userId) {
         int result = notificationMapper.markAllAsRead(userId);
+        if (result > 0) {
+            TransactionUtil.afterCommit(() -> unreadCounter.reset(userId));
+        }
         log.info("标记所有通知为已读：userId={}, count={}", userId, result);
     }
     
@@ -129,42 +253,41 @@ public class NotificationService {
             throw new BusinessException(ResultCode.FORBIDDEN, "无权删除此通知");
         }
         
-        // 3. 删除通知
-        int result = notificationMapper.deleteById(notificationId);
-        if (result <= 0) {
-            throw new BusinessException("删除通知失败");
+        // 3. 删除通知（先按未读条件删除，删除成功才减少未读数量）
+        if (notificationMapper.deleteUnreadById(notificationId) > 0) {
+            TransactionUtil.afterCommit(() -> unreadCounter.decrement(userId));
+        } else {
+            int result = notificationMapper.deleteById(notificationId);
+            if (result <= 0) {
+                throw new BusinessException("删除通知失败");
+            }
         }
         
         log.info("删除通知成功：notificationId={}, userId={}", notificationId, userId);
     }
     
     /**
-     * 转换为VO对象
+     * 查询ID大于 lastSeenId 的新通知
      */
-    private NotificationVO convertToVO(Notification notification) {
-        NotificationVO vo = new NotificationVO();
-        BeanUtils.copyProperties(notification, vo);
-        
-        // 如果有关联订单，查询订单号
-        if (notification.getOrderId() != null) {
-            Order order = orderMapper.findById(notification.getOrderId());
-            if (order != null) {
-                vo.setOrderNo(order.getOrderNo());
-            }
-        }
-        
-        return vo;
+    private NotificationPollVO buildPollResult(Long userId, Long lastSeenId) {
+        List<NotificationVO> notifications = notificationMapper.findByUserIdAfterId(userId, lastSeenId, POLL_MAX_SIZE);
+        Long newLastSeenId = notifications.isEmpty()
+                ? lastSeenId
+                : notifications.get(notifications.size() - 1).getId();
+        return new NotificationPollVO(notifications, newLastSeenId, unreadCounter.get(userId));
     }
     
     /**
-     * 批量转换为VO列表
+     * 解析分页游标（通知ID）
      */
-    private List<NotificationVO> convertToVOList(List<Notification> notifications) {
-        List<NotificationVO> voList = new ArrayList<>();
-        for (Notification notification : notifications) {
-            voList.add(convertToVO(notification));
+    private Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(cursor);
+        } catch (NumberFormatException e) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "分页游标无效");
         }
-        return voList;
     }
 }
-
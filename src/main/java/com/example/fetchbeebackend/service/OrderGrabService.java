@@ -0,0 +1,153 @@
+package com.example.fetchbeebackend.service;
+
+import com.example.fetchbeebackend.exception.BusinessException;
+import com.example.fetchbeebackend.utils.RedisUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 抢单服务
+ * 接单前先在 Redis 中原子抢占 order:grab:订单ID（值为接单者ID），只有抢占成功的请求进入 OrderService.acceptOrder，
+ * 其余并发请求直接拒绝，不再开启事务、查询订单和用户。
+ * 抢占带较短的过期时间：接单事务失败时立即释放，节点在事务中宕机时由过期时间兜底释放；
+ * 接单成功后延长过期时间，后续的接单请求继续在 Redis 中被拒绝。
+ * Redis 不可用时退回直接接单，由数据库条件更新保证只有一人接单成功。
+ */
+@Slf4j
+@Service
+public class OrderGrabService {
+
+    private static final String KEY_PREFIX = "order:grab:";
+
+    private static final long TAKEN = 0;
+
+    private static final long CLAIMED = 1;
+
+    /**
+     * 抢占：无人持有时写入并返回1，已由同一接单者持有时返回2（客户端重试），由他人持有时返回0
+     */
+    private static final RedisScript<Long> CLAIM = new DefaultRedisScript<>(
+            "local owner = redis.call('GET', KEYS[1]) "
+                    + "if owner then "
+                    + "if owner == ARGV[1] then return 2 end "
+                    + "return 0 "
+                    + "end "
+                    + "redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2]) "
+                    + "return 1", Long.class);
+
+    /**
+     * 仍由指定接单者持有时删除
+     */
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('DEL', KEYS[1]) "
+                    + "end "
+                    + "return 0", Long.class);
+
+    /**
+     * 仍由指定接单者持有时延长过期时间
+     */
+    private static final RedisScript<Long> HOLD = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('PEXPIRE', KEYS[1], ARGV[2]) "
+                    + "end "
+                    + "return 0", Long.class);
+
+    @Value("${order.grab.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 抢占的过期时间（毫秒），需覆盖接单事务的执行时间
+     */
+    @Value("${order.grab.claim-ttl-ms:5000}")
+    private long claimTtlMs;
+
+    /**
+     * 接单成功后抢占的保留时间（秒）
+     */
+    @Value("${order.grab.hold-seconds:600}")
+    private long holdSeconds;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 抢单（抢占成功后接单）
+     */
+    public void acceptOrder(Long orderId, Long receiverId) {
+        if (!enabled) {
+            orderService.acceptOrder(orderId, receiverId);
+            return;
+        }
+
+        String key = KEY_PREFIX + orderId;
+        String owner = String.valueOf(receiverId);
+
+        // 1. 抢占
+        Long claim = claim(key, owner);
+        if (claim != null && claim == TAKEN) {
+            count("rejected");
+            throw new BusinessException("接单失败，订单可能已被他人接单");
+        }
+
+        // 2. 抢占成功（或 Redis 不可用）：进入数据库接单
+        try {
+            orderService.acceptOrder(orderId, receiverId);
+        } catch (RuntimeException e) {
+            // 本次新抢占的订单接单失败时释放，其他人可以继续抢
+            if (claim != null && claim == CLAIMED) {
+                release(key, owner);
+                count("released");
+            }
+            throw e;
+        }
+
+        // 3. 接单成功：延长抢占，后续请求继续在 Redis 中被拒绝
+        if (claim != null) {
+            hold(key, owner);
+        }
+        count(claim == null ? "bypassed" : "won");
+    }
+
+    private Long claim(String key, String owner) {
+        try {
+            return redisUtil.execute(CLAIM, List.of(key), owner, String.valueOf(claimTtlMs));
+        } catch (Exception e) {
+            log.warn("抢单抢占失败，直接接单：key={}, error={}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void release(String key, String owner) {
+        try {
+            redisUtil.execute(RELEASE, List.of(key), owner);
+        } catch (Exception e) {
+            log.warn("释放抢单抢占失败，等待过期：key={}, error={}", key, e.getMessage());
+        }
+    }
+
+    private void hold(String key, String owner) {
+        try {
+            redisUtil.execute(HOLD, List.of(key), owner, String.valueOf(holdSeconds * 1000));
+        } catch (Exception e) {
+            log.warn("延长抢单抢占失败：key={}, error={}", key, e.getMessage());
+        }
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("order.grab", "result", result).increment();
+    }
+}
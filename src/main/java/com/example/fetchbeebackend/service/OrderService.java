@@ -1,14 +1,21 @@
 package com.example.fetchbeebackend.service;
 
+import com.example.fetchbeebackend.cache.OrderDetailCache;
+import com.example.fetchbeebackend.cache.PendingOrderBook;
 import com.example.fetchbeebackend.common.ResultCode;
 import com.example.fetchbeebackend.dto.CreateOrderRequest;
 import com.example.fetchbeebackend.entity.Order;
 import com.example.fetchbeebackend.entity.User;
 import com.example.fetchbeebackend.enums.NotificationType;
 import com.example.fetchbeebackend.enums.OrderStatus;
+import com.example.fetchbeebackend.enums.OrderTransition;
 import com.example.fetchbeebackend.exception.BusinessException;
 import com.example.fetchbeebackend.mapper.OrderMapper;
 import com.example.fetchbeebackend.mapper.UserMapper;
+import com.example.fetchbeebackend.task.OrderAutoConfirmQueue;
+import com.example.fetchbeebackend.task.OrderExpireWheel;
+import com.example.fetchbeebackend.utils.OrderNoGenerator;
+import com.example.fetchbeebackend.vo.CursorPageVO;
 import com.example.fetchbeebackend.vo.OrderVO;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
@@ -17,11 +24,15 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 订单服务类
@@ -36,19 +47,50 @@ public class OrderService {
     @Autowired
     private UserMapper userMapper;
     
+    @Autowired
+    private UserService userService;
+    
     @Autowired
     private BalanceService balanceService;
     
     @Autowired
     private NotificationService notificationService;
     
+    @Autowired
+    private PendingOrderBook pendingOrderBook;
+    
+    @Autowired
+    private OrderNoGenerator orderNoGenerator;
+    
+    @Autowired
+    private OrderExpireWheel orderExpireWheel;
+    
+    @Autowired
+    private OrderAutoConfirmQueue orderAutoConfirmQueue;
+    
+    @Autowired
+    private OrderStateMachine orderStateMachine;
+    
+    @Autowired
+    private OrderDetailCache orderDetailCache;
+    
+    /**
+     * 待接单列表每页默认条数
+     */
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    
+    /**
+     * 待接单列表每页最大条数
+     */
+    private static final int MAX_PAGE_SIZE = 50;
+    
     /**
      * 发布订单
      */
     @Transactional(rollbackFor = Exception.class)
     public Long createOrder(Long publisherId, CreateOrderRequest request) {
         // 1. 查询发布者信息
-        User publisher = userMapper.findById(publisherId);
+        User publisher = userMapper.findGateById(publisherId);
         if (publisher == null) {
             throw new BusinessException(ResultCode.USER_NOT_FOUND, "用户不存在");
         }
@@ -84,7 +126,7 @@ public class OrderService {
         
         // 4. 创建订单
         Order order = new Order();
-        order.setOrderNo(generateOrderNo());
+        order.setOrderNo(orderNoGenerator.nextOrderNo());
         order.setPublisherId(publisherId);
         order.setExpressCompany(request.getExpressCompany());
         order.setPickupCode(request.getPickupCode());
@@ -94,6 +136,7 @@ public class OrderService {
         order.setReward(request.getReward());
         order.setDeadline(request.getDeadline());
         order.setStatus(OrderStatus.PENDING.getCode());
+        order.setCreateTime(now.withNano(0));
         
         int result = orderMapper.insert(order);
         if (result <= 0) {
@@ -104,6 +147,10 @@ public class OrderService {
         balanceService.deduct(publisherId, request.getReward(), order.getId(), 
                 "发布订单：" + order.getOrderNo());
         
+        // 6. 加入待接单订单簿和过期时间轮（事务提交后生效）
+        pendingOrderBook.add(order, publisher.getUsername());
+        orderExpireWheel.schedule(order.getId(), order.getDeadline());
+        
         log.info("发布订单成功：orderId={}, publisherId={}, reward={}", 
                 order.getId(), publisherId, request.getReward());
         
@@ -122,7 +169,7 @@ public class OrderService {
         }
         
         // 2. 检查订单状态
-        if (!order.getStatus().equals(OrderStatus.PENDING.getCode())) {
+        if (!OrderTransition.ACCEPT.canFire(order.getStatus())) {
             throw new BusinessException(ResultCode.PARAM_ERROR, "该订单已被接单或已完成");
         }
         
@@ -132,7 +179,7 @@ public class OrderService {
         }
 
         // 4. 检查接单者是否已完成学生认证
-        User receiver = userMapper.findById(receiverId);
+        User receiver = userMapper.findGateById(receiverId);
         if (receiver == null) {
             throw new BusinessException(ResultCode.USER_NOT_FOUND, "用户不存在");
         }
@@ -145,11 +192,13 @@ public class OrderService {
             throw new BusinessException(ResultCode.PARAM_ERROR, "订单已过期，无法接单");
         }
 
-        // 6. 接单（更新订单状态和接单者ID）
-        int result = orderMapper.acceptOrder(orderId, receiverId);
-        if (result <= 0) {
+        // 6. 接单（更新订单状态和接单者ID，仍为待接单时才能成功）
+        Order changes = new Order();
+        changes.setReceiverId(receiverId);
+        if (!orderStateMachine.transition(orderId, OrderTransition.ACCEPT, changes)) {
             throw new BusinessException("接单失败，订单可能已被他人接单");
         }
+        pendingOrderBook.remove(orderId);
 
         // 7. 通知发布者：订单已被接单
         notificationService.createNotification(
@@ -175,7 +224,7 @@ public class OrderService {
         }
         
         // 2. 检查订单状态
-        if (!order.getStatus().equals(OrderStatus.ACCEPTED.getCode())) {
+        if (!OrderTransition.DELIVER.canFire(order.getStatus())) {
             throw new BusinessException(ResultCode.PARAM_ERROR, "订单状态不正确，当前状态：" + getStatusDesc(order.getStatus()));
         }
         
@@ -185,10 +234,13 @@ public class OrderService {
         }
         
         // 4. 更新订单状态为待确认
-        int result = orderMapper.deliverOrder(orderId, LocalDateTime.now());
-        if (result <= 0) {
+        LocalDateTime deliverTime = LocalDateTime.now();
+        Order changes = new Order();
+        changes.setDeliverTime(deliverTime);
+        if (!orderStateMachine.transition(orderId, OrderTransition.DELIVER, changes)) {
             throw new BusinessException("标记送达失败");
         }
+        orderAutoConfirmQueue.schedule(orderId, deliverTime);
         
         // 5. 通知发布者：快递已送达
         notificationService.createNotification(
@@ -214,7 +266,7 @@ public class OrderService {
         }
         
         // 2. 检查订单状态
-        if (!order.getStatus().equals(OrderStatus.DELIVERED.getCode())) {
+        if (!OrderTransition.CONFIRM.canFire(order.getStatus())) {
             throw new BusinessException(ResultCode.PARAM_ERROR, "订单状态不正确，当前状态：" + getStatusDesc(order.getStatus()));
         }
         
@@ -238,10 +290,9 @@ public class OrderService {
             actualReward = order.getReward();
         }
         
-        // 5. 更新订单状态为已完成
-        int result = orderMapper.completeOrder(orderId, actualReward, now);
-        if (result <= 0) {
-            throw new BusinessException("确认收货失败");
+        // 5. 更新订单状态为已完成（与自动确认并发时只有一方成功）
+        if (!orderStateMachine.transition(orderId, OrderTransition.CONFIRM, completeChanges(actualReward, now))) {
+            throw new BusinessException("确认收货失败，订单状态已变化");
         }
         
         // 6. 给接单者转账
@@ -275,7 +326,7 @@ public class OrderService {
         }
         
         // 2. 检查订单状态
-        if (!order.getStatus().equals(OrderStatus.ACCEPTED.getCode())) {
+        if (!OrderTransition.COMPLETE.canFire(order.getStatus())) {
             throw new BusinessException(ResultCode.PARAM_ERROR, "订单状态不正确");
         }
         
@@ -300,9 +351,8 @@ public class OrderService {
         }
         
         // 5. 更新订单状态为已完成
-        int result = orderMapper.completeOrder(orderId, actualReward, now);
-        if (result <= 0) {
-            throw new BusinessException("完成订单失败");
+        if (!orderStateMachine.transition(orderId, OrderTransition.COMPLETE, completeChanges(actualReward, now))) {
+            throw new BusinessException("完成订单失败，订单状态已变化");
         }
         
         // 6. 给接单者转账
@@ -330,15 +380,15 @@ public class OrderService {
         }
         
         // 3. 只有待接单状态的订单才能取消
-        if (!order.getStatus().equals(OrderStatus.PENDING.getCode())) {
+        if (!OrderTransition.CANCEL.canFire(order.getStatus())) {
             throw new BusinessException(ResultCode.PARAM_ERROR, "该订单无法取消");
         }
         
-        // 4. 更新订单状态为已取消
-        int result = orderMapper.cancelOrder(orderId, reason);
-        if (result <= 0) {
-            throw new BusinessException("取消订单失败");
+        // 4. 更新订单状态为已取消（与接单并发时只有一方成功）
+        if (!orderStateMachine.transition(orderId, OrderTransition.CANCEL, cancelChanges(reason))) {
+            throw new BusinessException("取消订单失败，订单可能已被接单");
         }
+        pendingOrderBook.remove(orderId);
         
         // 5. 退款给发布者
         balanceService.refund(publisherId, order.getReward(), orderId, 
@@ -348,26 +398,188 @@ public class OrderService {
                 orderId, publisherId, reason);
     }
     
+    /**
+     * 过期取消订单（系统操作，到达截止时间仍无人接单）
+     * @return 是否取消成功（订单已被接单、已取消或未到截止时间时返回false）
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public boolean expireOrder(Long orderId) {
+        // 1. 查询订单
+        Order order = orderMapper.findById(orderId);
+        if (order == null || !OrderTransition.EXPIRE.canFire(order.getStatus())) {
+            return false;
+        }
+        
+        // 2. 检查是否已到截止时间
+        LocalDateTime now = LocalDateTime.now();
+        if (now.isBefore(order.getDeadline())) {
+            return false;
+        }
+        
+        // 3. 更新订单状态为已取消（仅待接单状态可更新，避免与接单并发）
+        if (!orderStateMachine.transition(orderId, OrderTransition.EXPIRE, cancelChanges("订单已过期，无人接单"))) {
+            return false;
+        }
+        pendingOrderBook.remove(orderId);
+        
+        // 4. 退款给发布者
+        balanceService.refund(order.getPublisherId(), order.getReward(), orderId,
+                "订单过期退款：" + order.getOrderNo());
+        
+        // 5. 通知发布者：订单已过期
+        notificationService.createNotification(
+            order.getPublisherId(),
+            NotificationType.ORDER_EXPIRED,
+            "订单已过期",
+            "订单【" + order.getOrderNo() + "】已过期，报酬 ¥" + order.getReward() + " 已退回",
+            orderId
+        );
+        
+        log.info("取消过期订单成功：orderId={}, orderNo={}, publisherId={}, reward={}",
+                orderId, order.getOrderNo(), order.getPublisherId(), order.getReward());
+        return true;
+    }
+    
+    /**
+     * 自动确认订单（系统操作，送达超过24小时发布者仍未确认）
+     * @return 是否确认成功（订单已确认、状态已变化或未到自动确认时间时返回false）
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public boolean autoConfirmOrder(Long orderId) {
+        // 1. 查询订单
+        Order order = orderMapper.findById(orderId);
+        if (order == null || !OrderTransition.AUTO_CONFIRM.canFire(order.getStatus())) {
+            return false;
+        }
+        
+        // 2. 检查是否已到自动确认时间
+        LocalDateTime now = LocalDateTime.now();
+        if (now.isBefore(order.getDeliverTime().plus(OrderAutoConfirmQueue.AUTO_CONFIRM_DELAY))) {
+            return false;
+        }
+        
+        // 3. 判断是否超时，计算实际支付金额
+        BigDecimal actualReward;
+        boolean isOvertime = now.isAfter(order.getDeadline());
+        
+        if (isOvertime) {
+            // 超时完成，按80%支付
+            actualReward = order.getReward().multiply(new BigDecimal("0.8"));
+            log.warn("订单超时完成（自动确认）：orderId={}, 原报酬={}, 实际支付={}", 
+                    orderId, order.getReward(), actualReward);
+        } else {
+            // 按时完成，全额支付
+            actualReward = order.getReward();
+        }
+        
+        // 4. 更新订单状态为已完成（仅待确认的订单可更新，避免与确认收货并发）
+        if (!orderStateMachine.transition(orderId, OrderTransition.AUTO_CONFIRM, completeChanges(actualReward, now))) {
+            return false;
+        }
+        
+        // 5. 给接单者转账
+        balanceService.transfer(order.getReceiverId(), actualReward, orderId, 
+                "完成订单收入（自动确认）：" + order.getOrderNo() + (isOvertime ? "（超时）" : ""));
+        
+        // 6. 通知发布者：订单已自动确认
+        notificationService.createNotification(
+            order.getPublisherId(),
+            NotificationType.ORDER_AUTO_CONFIRMED,
+            "订单已自动确认",
+            "订单【" + order.getOrderNo() + "】已自动确认完成",
+            orderId
+        );
+        
+        // 7. 通知接单者：订单已完成，报酬已到账
+        notificationService.createNotification(
+            order.getReceiverId(),
+            NotificationType.ORDER_COMPLETED,
+            "订单已完成",
+            "订单【" + order.getOrderNo() + "】已自动确认完成，报酬 ¥" + actualReward + " 已到账" + (isOvertime ? "（超时）" : ""),
+            orderId
+        );
+        
+        log.info("自动确认订单成功：orderId={}, orderNo={}, receiverId={}, actualReward={}, isOvertime={}", 
+                orderId, order.getOrderNo(), order.getReceiverId(), actualReward, isOvertime);
+        return true;
+    }
+    
     /**
      * 查询订单详情
      */
     public OrderVO getOrderDetail(Long orderId, Long userId) {
-        Order order = orderMapper.findById(orderId);
-        if (order == null) {
+        // 缓存的是与查看者无关的快照，是否超时和取件码隐藏在每次读取后处理
+        OrderVO vo = orderDetailCache.get(orderId, this::loadDetailSnapshot);
+        if (vo == null) {
             throw new BusinessException(ResultCode.NOT_FOUND, "订单不存在");
         }
         
-        return convertToVO(order, userId);
+        vo.setIsOvertime(isOvertime(vo.getDeadline(), vo.getStatus()));
+        maskPickupCode(vo, userId);
+        return vo;
+    }
+    
+    /**
+     * 加载订单详情快照（不隐藏取件码）
+     */
+    private OrderVO loadDetailSnapshot(Long orderId) {
+        Order order = orderMapper.findById(orderId);
+        if (order == null) {
+            return null;
+        }
+        return buildVO(order, userService.getUsernameMap(collectUserIds(List.of(order))));
     }
     
     /**
      * 查询待接单订单列表
      */
     public List<OrderVO> getPendingOrders(Long userId) {
+        // 优先从内存订单簿读取，首次加载完成前回退到数据库
+        if (pendingOrderBook.isLoaded()) {
+            return convertPendingToVOList(pendingOrderBook.list(), userId);
+        }
         List<Order> orders = orderMapper.findPendingOrders();
         return convertToVOList(orders, userId);
     }
     
+    /**
+     * 游标分页查询待接单订单列表
+     * 按 (create_time, id) 倒序定位，翻到第N页的开销与第一页相同
+     */
+    public CursorPageVO<OrderVO> getPendingOrderFeed(Long userId, String cursor, Integer size) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        
+        LocalDateTime cursorTime = null;
+        Long cursorId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            Order cursorOrder = decodeCursor(cursor);
+            cursorTime = cursorOrder.getCreateTime();
+            cursorId = cursorOrder.getId();
+        }
+        
+        // 多查一条用于判断是否还有下一页；优先从内存订单簿读取，首次加载完成前回退到数据库
+        if (pendingOrderBook.isLoaded()) {
+            List<PendingOrderBook.PendingOrder> pendingOrders =
+                    pendingOrderBook.page(cursorTime, cursorId, pageSize + 1);
+            boolean hasMore = pendingOrders.size() > pageSize;
+            if (hasMore) {
+                pendingOrders = pendingOrders.subList(0, pageSize);
+            }
+            
+            String nextCursor = hasMore ? encodeCursor(pendingOrders.get(pendingOrders.size() - 1).order()) : null;
+            return new CursorPageVO<>(convertPendingToVOList(pendingOrders, userId), nextCursor, hasMore);
+        }
+        
+        List<Order> orders = orderMapper.findPendingOrdersByCursor(cursorTime, cursorId, pageSize + 1);
+        boolean hasMore = orders.size() > pageSize;
+        if (hasMore) {
+            orders = orders.subList(0, pageSize);
+        }
+        
+        String nextCursor = hasMore ? encodeCursor(orders.get(orders.size() - 1)) : null;
+        return new CursorPageVO<>(convertToVOList(orders, userId), nextCursor, hasMore);
+    }
+    
     /**
      * 查询我发布的订单列表
      */
@@ -385,62 +597,138 @@ public class OrderService {
     }
     
     /**
-     * 生成订单号
+     * 完成订单时随状态写入的字段
      */
-    private String generateOrderNo() {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-        String uuid = UUID.randomUUID().toString().replace("-", "").substring(0, 6);
-        return "FO" + timestamp + uuid;
+    private Order completeChanges(BigDecimal actualReward, LocalDateTime completeTime) {
+        Order changes = new Order();
+        changes.setActualReward(actualReward);
+        changes.setCompleteTime(completeTime);
+        return changes;
     }
     
     /**
-     * 转换为VO对象
+     * 取消订单时随状态写入的字段
      */
-    private OrderVO convertToVO(Order order, Long userId) {
+    private Order cancelChanges(String cancelReason) {
+        Order changes = new Order();
+        changes.setCancelReason(cancelReason);
+        return changes;
+    }
+    
+    /**
+     * 生成分页游标（最后一条记录的创建时间和ID）
+     */
+    private String encodeCursor(Order order) {
+        String raw = order.getCreateTime() + "_" + order.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * 解析分页游标
+     */
+    private Order decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int index = raw.lastIndexOf('_');
+            Order order = new Order();
+            order.setCreateTime(LocalDateTime.parse(raw.substring(0, index)));
+            order.setId(Long.parseLong(raw.substring(index + 1)));
+            return order;
+        } catch (RuntimeException e) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "分页游标无效");
+        }
+    }
+    
+    /**
+     * 转换为VO对象（用户名从预先批量查询的结果中获取）
+     */
+    private OrderVO convertToVO(Order order, Long userId, Map<Long, String> usernameMap) {
+        OrderVO vo = buildVO(order, usernameMap);
+        maskPickupCode(vo, userId);
+        return vo;
+    }
+    
+    /**
+     * 组装VO对象（不隐藏取件码）
+     */
+    private OrderVO buildVO(Order order, Map<Long, String> usernameMap) {
         OrderVO vo = new OrderVO();
         BeanUtils.copyProperties(order, vo);
         
-        // 查询发布者信息
-        User publisher = userMapper.findById(order.getPublisherId());
-        if (publisher != null) {
-            vo.setPublisherName(publisher.getUsername());
-        }
-        
-        // 查询接单者信息
+        // 发布者和接单者用户名
+        vo.setPublisherName(usernameMap.get(order.getPublisherId()));
         if (order.getReceiverId() != null) {
-            User receiver = userMapper.findById(order.getReceiverId());
-            if (receiver != null) {
-                vo.setReceiverName(receiver.getUsername());
-            }
+            vo.setReceiverName(usernameMap.get(order.getReceiverId()));
         }
         
         // 设置状态描述
         vo.setStatusDesc(getStatusDesc(order.getStatus()));
         
         // 判断是否超时
-        vo.setIsOvertime(LocalDateTime.now().isAfter(order.getDeadline()) 
-                && order.getStatus().equals(OrderStatus.ACCEPTED.getCode()));
+        vo.setIsOvertime(isOvertime(order.getDeadline(), order.getStatus()));
         
-        // 取件码只对发布者和接单者可见
-        if (!order.getPublisherId().equals(userId) && 
-            (order.getReceiverId() == null || !order.getReceiverId().equals(userId))) {
+        return vo;
+    }
+    
+    /**
+     * 判断已接单的订单是否超过截止时间
+     */
+    private boolean isOvertime(LocalDateTime deadline, Integer status) {
+        return LocalDateTime.now().isAfter(deadline) 
+                && status.equals(OrderStatus.ACCEPTED.getCode());
+    }
+    
+    /**
+     * 取件码只对发布者和接单者可见
+     */
+    private void maskPickupCode(OrderVO vo, Long userId) {
+        if (!vo.getPublisherId().equals(userId) && 
+            (vo.getReceiverId() == null || !vo.getReceiverId().equals(userId))) {
             vo.setPickupCode("***"); // 隐藏取件码
         }
-        
-        return vo;
     }
     
     /**
-     * 批量转换为VO列表
+     * 批量转换为VO列表（发布者和接单者用户名一次批量查询）
      */
     private List<OrderVO> convertToVOList(List<Order> orders, Long userId) {
+        Map<Long, String> usernameMap = userService.getUsernameMap(collectUserIds(orders));
         List<OrderVO> voList = new ArrayList<>();
         for (Order order : orders) {
-            voList.add(convertToVO(order, userId));
+            voList.add(convertToVO(order, userId, usernameMap));
         }
         return voList;
     }
     
+    /**
+     * 订单簿条目转换为VO列表（发布者用户名已随条目缓存，无需查库）
+     */
+    private List<OrderVO> convertPendingToVOList(List<PendingOrderBook.PendingOrder> pendingOrders, Long userId) {
+        Map<Long, String> usernameMap = new HashMap<>();
+        for (PendingOrderBook.PendingOrder pendingOrder : pendingOrders) {
+            usernameMap.put(pendingOrder.order().getPublisherId(), pendingOrder.publisherName());
+        }
+        List<OrderVO> voList = new ArrayList<>();
+        for (PendingOrderBook.PendingOrder pendingOrder : pendingOrders) {
+            voList.add(convertToVO(pendingOrder.order(), userId, usernameMap));
+        }
+        return voList;
+    }
+    
+    /**
+     * 收集订单涉及的发布者和接单者ID
+     */
+    private Set<Long> collectUserIds(List<Order> orders) {
+        Set<Long> userIds = new HashSet<>();
+        for (Order order : orders) {
+            userIds.add(order.getPublisherId());
+            if (order.getReceiverId() != null) {
+                userIds.add(order.getReceiverId());
+            }
+        }
+        return userIds;
+    }
+    
     /**
      * 获取状态描述
      */
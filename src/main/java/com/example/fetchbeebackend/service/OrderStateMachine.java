@@ -0,0 +1,58 @@
+package com.example.fetchbeebackend.service;
+
+import com.example.fetchbeebackend.cache.OrderDetailCache;
+import com.example.fetchbeebackend.entity.Order;
+import com.example.fetchbeebackend.enums.OrderTransition;
+import com.example.fetchbeebackend.mapper.OrderMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 订单状态机
+ * 所有状态变更都通过 transition 执行：一条 UPDATE ... WHERE status IN (来源状态)，
+ * 更新行数为1表示本次调用赢得并发竞争，为0表示订单状态已被其他操作改变（或订单不存在）。
+ * 并发的确认与自动确认、取消与接单只有一方成功，资金只会变动一次。
+ * 流转成功后清除订单详情缓存。
+ */
+@Slf4j
+@Component
+public class OrderStateMachine {
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private OrderDetailCache orderDetailCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 执行状态流转
+     * @param changes 随状态一起写入的字段（接单者、送达时间、实际报酬、完成时间、取消原因），可为null
+     * @return 是否流转成功（当前状态不属于来源状态时返回false）
+     */
+    public boolean transition(Long orderId, OrderTransition transition, Order changes) {
+        int result = orderMapper.transitionStatus(orderId, transition.getSourceCodes(),
+                transition.getTarget().getCode(), changes);
+        boolean success = result > 0;
+        meterRegistry.counter("order.transition",
+                "transition", transition.name(),
+                "result", success ? "success" : "conflict").increment();
+        if (success) {
+            orderDetailCache.invalidate(orderId);
+        } else {
+            log.debug("订单状态流转未生效（状态已变化）：orderId={}, transition={}", orderId, transition);
+        }
+        return success;
+    }
+
+    /**
+     * 执行状态流转（不附带其他字段）
+     */
+    public boolean transition(Long orderId, OrderTransition transition) {
+        return transition(orderId, transition, null);
+    }
+}
@@ -1,23 +1,27 @@
 package com.example.fetchbeebackend.service;
 
+import com.example.fetchbeebackend.cache.OrderDetailCache;
 import com.example.fetchbeebackend.common.ResultCode;
 import com.example.fetchbeebackend.dto.ReviewRightsProtectionRequest;
 import com.example.fetchbeebackend.dto.SubmitRightsProtectionRequest;
 import com.example.fetchbeebackend.entity.Order;
-import com.example.fetchbeebackend.entity.User;
 import com.example.fetchbeebackend.enums.NotificationType;
+import com.example.fetchbeebackend.enums.OrderTransition;
 import com.example.fetchbeebackend.exception.BusinessException;
+import com.example.fetchbeebackend.exception.ConcurrentUpdateException;
 import com.example.fetchbeebackend.mapper.OrderMapper;
-import com.example.fetchbeebackend.mapper.UserMapper;
+import com.example.fetchbeebackend.utils.OptimisticRetry;
 import com.example.fetchbeebackend.vo.RightsProtectionVO;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 维权服务类
@@ -30,7 +34,7 @@ public class RightsProtectionService {
     private OrderMapper orderMapper;
 
     @Autowired
-    private UserMapper userMapper;
+    private UserService userService;
 
     @Autowired
     private BalanceService balanceService;
@@ -38,28 +42,35 @@ public class RightsProtectionService {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private OrderStateMachine orderStateMachine;
+
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+
+    @Autowired
+    private OrderDetailCache orderDetailCache;
+
     /**
-     * 提交维权申请
+     * 提交维权申请（双方同时申请时只有一方成功，另一方重新校验后收到“正在审核中”）
      */
-    @Transactional(rollbackFor = Exception.class)
     public void submitRightsProtection(Long orderId, Long userId, SubmitRightsProtectionRequest request) {
+        optimisticRetry.run("order.rights.submit", () -> doSubmitRightsProtection(orderId, userId, request));
+    }
+
+    private void doSubmitRightsProtection(Long orderId, Long userId, SubmitRightsProtectionRequest request) {
         // 1. 查询订单
         Order order = orderMapper.findById(orderId);
         if (order == null) {
             throw new BusinessException(ResultCode.NOT_FOUND, "订单不存在");
         }
 
-        // 2. 检查订单状态：只有已接单和待确认状态可以申请维权
-        if (order.getStatus() != 2 && order.getStatus() != 3) {
+        // 2. 检查订单状态：只有已接单和待确认（维权通过后可取消）的订单可以申请维权
+        if (!OrderTransition.RIGHTS_CANCEL.canFire(order.getStatus())) {
             throw new BusinessException(ResultCode.PARAM_ERROR, "当前订单状态不允许申请维权");
         }
 
-        // 3. 检查是否已完成
-        if (order.getStatus() == 4 || order.getStatus() == 5) {
-            throw new BusinessException(ResultCode.PARAM_ERROR, "订单已完成或已取消，无法申请维权");
-        }
-
-        // 4. 检查是否是订单相关人员
+        // 3. 检查是否是订单相关人员
         String applicant;
         Long notifyUserId;
         if (order.getPublisherId().equals(userId)) {
@@ -72,21 +83,22 @@ public class RightsProtectionService {
             throw new BusinessException(ResultCode.FORBIDDEN, "只有订单发布者或接单者才能申请维权");
         }
 
-        // 5. 检查维权状态：只允许一方申请，等审核结束后另一方才能申请
+        // 4. 检查维权状态：只允许一方申请，等审核结束后另一方才能申请
         if (order.getRightsStatus() != null && order.getRightsStatus() == 1) {
             throw new BusinessException(ResultCode.PARAM_ERROR, "该订单已有维权申请正在审核中，请等待审核结果");
         }
 
-        // 6. 检查是否已经申请过维权
+        // 5. 检查是否已经申请过维权
         if (order.getRightsApplicant() != null && order.getRightsApplicant().equals(applicant)) {
             if (order.getRightsStatus() == 2 || order.getRightsStatus() == 3) {
                 throw new BusinessException(ResultCode.PARAM_ERROR, "您已经申请过维权，不能重复申请");
             }
         }
 
-        // 7. 提交维权申请
+        // 6. 提交维权申请（版本号未变化时才更新）
         int result = orderMapper.submitRightsProtection(
                 orderId,
+                order.getVersion(),
                 applicant,
                 request.getRightsDescription(),
                 request.getRightsImage(),
@@ -94,10 +106,11 @@ public class RightsProtectionService {
         );
 
         if (result <= 0) {
-            throw new BusinessException("提交维权申请失败");
+            throw new ConcurrentUpdateException("订单已被修改，请重试");
         }
+        orderDetailCache.invalidate(orderId);
 
-        // 8. 通知对方
+        // 7. 通知对方
         if (notifyUserId != null) {
             notificationService.createNotification(
                     notifyUserId,
@@ -112,10 +125,13 @@ public class RightsProtectionService {
     }
 
     /**
-     * 审核维权申请
+     * 审核维权申请（重复审核时只有一次生效）
      */
-    @Transactional(rollbackFor = Exception.class)
     public void reviewRightsProtection(Long orderId, ReviewRightsProtectionRequest request) {
+        optimisticRetry.run("order.rights.review", () -> doReviewRightsProtection(orderId, request));
+    }
+
+    private void doReviewRightsProtection(Long orderId, ReviewRightsProtectionRequest request) {
         // 1. 查询订单
         Order order = orderMapper.findById(orderId);
         if (order == null) {
@@ -140,9 +156,10 @@ public class RightsProtectionService {
             }
         }
 
-        // 5. 审核维权
+        // 5. 审核维权（仍为待审核且版本号未变化时才更新）
         int result = orderMapper.reviewRightsProtection(
                 orderId,
+                order.getVersion(),
                 request.getRightsStatus(),
                 request.getRightsRemark(),
                 request.getRightsFundTo(),
@@ -150,8 +167,9 @@ public class RightsProtectionService {
         );
 
         if (result <= 0) {
-            throw new BusinessException("审核维权失败");
+            throw new ConcurrentUpdateException("订单已被修改，请刷新后重试");
         }
+        orderDetailCache.invalidate(orderId);
 
         // 6. 如果维权通过，处理资金和订单状态
         if (request.getRightsStatus() == 2) {
@@ -186,8 +204,12 @@ public class RightsProtectionService {
      * 处理维权通过的情况
      */
     private void handleRightsApproved(Order order, String fundTo) {
-        // 取消订单
-        orderMapper.cancelOrder(order.getId(), "维权通过，订单取消");
+        // 取消订单（订单已完成或已取消时不再处理资金）
+        Order changes = new Order();
+        changes.setCancelReason("维权通过，订单取消");
+        if (!orderStateMachine.transition(order.getId(), OrderTransition.RIGHTS_CANCEL, changes)) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "订单已完成或已取消，无法按维权结果处理资金");
+        }
 
         // 根据申请人和资金流向处理资金
         if ("publisher".equals(order.getRightsApplicant())) {
@@ -225,7 +247,7 @@ public class RightsProtectionService {
         }
 
         // 3. 构造VO
-        return convertToVO(order);
+        return convertToVO(order, userService.getUsernameMap(collectUserIds(List.of(order))));
     }
 
     /**
@@ -233,17 +255,33 @@ public class RightsProtectionService {
      */
     public List<RightsProtectionVO> getPendingRightsProtectionList() {
         List<Order> orders = orderMapper.findPendingRightsProtectionOrders();
+        // 发布者和接单者用户名一次批量查询
+        Map<Long, String> usernameMap = userService.getUsernameMap(collectUserIds(orders));
         List<RightsProtectionVO> voList = new ArrayList<>();
         for (Order order : orders) {
-            voList.add(convertToVO(order));
+            voList.add(convertToVO(order, usernameMap));
         }
         return voList;
     }
 
+    /**
+     * 收集订单涉及的发布者和接单者ID
+     */
+    private Set<Long> collectUserIds(List<Order> orders) {
+        Set<Long> userIds = new HashSet<>();
+        for (Order order : orders) {
+            userIds.add(order.getPublisherId());
+            if (order.getReceiverId() != null) {
+                userIds.add(order.getReceiverId());
+            }
+        }
+        return userIds;
+    }
+
     /**
      * 转换为VO
      */
-    private RightsProtectionVO convertToVO(Order order) {
+    private RightsProtectionVO convertToVO(Order order, Map<Long, String> usernameMap) {
         RightsProtectionVO vo = new RightsProtectionVO();
         vo.setOrderId(order.getId());
         vo.setOrderNo(order.getOrderNo());
@@ -257,18 +295,10 @@ public class RightsProtectionService {
         vo.setRightsFundTo(order.getRightsFundTo());
         vo.setReward(order.getReward());
 
-        // 查询发布者信息
-        User publisher = userMapper.findById(order.getPublisherId());
-        if (publisher != null) {
-            vo.setPublisherName(publisher.getUsername());
-        }
-
-        // 查询接单者信息
+        // 发布者和接单者用户名
+        vo.setPublisherName(usernameMap.get(order.getPublisherId()));
         if (order.getReceiverId() != null) {
-            User receiver = userMapper.findById(order.getReceiverId());
-            if (receiver != null) {
-                vo.setReceiverName(receiver.getUsername());
-            }
+            vo.setReceiverName(usernameMap.get(order.getReceiverId()));
         }
 
         // 查询申请人姓名
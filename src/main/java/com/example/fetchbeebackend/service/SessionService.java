@@ -0,0 +1,131 @@
+package com.example.fetchbeebackend.service;
+
+import com.example.fetchbeebackend.cache.SessionCache;
+import com.example.fetchbeebackend.utils.RedisUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 登录会话服务
+ * 会话以 Token 中的 jti（会话ID）为键保存：session:会话ID -> 用户ID，过期时间与 Token 一致；
+ * 每个用户的会话ID记录在有序集合 user:sessions:用户ID 中，分数为会话过期时间（毫秒），
+ * 用于统计会话数和退出全部登录，写入时顺带清理已过期的成员。
+ */
+@Slf4j
+@Service
+public class SessionService {
+
+    private static final String USER_SESSIONS_PREFIX = "user:sessions:";
+
+    /**
+     * 写入会话并加入用户会话集合，集合过期时间随最新会话延长
+     */
+    private static final RedisScript<Long> CREATE = new DefaultRedisScript<>(
+            "local now = tonumber(ARGV[3]) "
+                    + "local ttl = tonumber(ARGV[2]) "
+                    + "redis.call('SET', KEYS[1], ARGV[1], 'PX', ttl) "
+                    + "redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', now) "
+                    + "redis.call('ZADD', KEYS[2], now + ttl, ARGV[4]) "
+                    + "redis.call('PEXPIRE', KEYS[2], ttl) "
+                    + "return 1", Long.class);
+
+    /**
+     * 删除会话并移出用户会话集合
+     */
+    private static final RedisScript<Long> REMOVE = new DefaultRedisScript<>(
+            "redis.call('DEL', KEYS[1]) "
+                    + "return redis.call('ZREM', KEYS[2], ARGV[1])", Long.class);
+
+    /**
+     * 删除用户的全部会话，返回被删除的会话ID
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> REMOVE_ALL = new DefaultRedisScript<>(
+            "local ids = redis.call('ZRANGE', KEYS[1], 0, -1) "
+                    + "for _, id in ipairs(ids) do "
+                    + "redis.call('DEL', ARGV[1] .. id) "
+                    + "end "
+                    + "redis.call('DEL', KEYS[1]) "
+                    + "return ids", List.class);
+
+    /**
+     * 清理已过期的成员后统计会话数
+     */
+    private static final RedisScript<Long> COUNT = new DefaultRedisScript<>(
+            "redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', ARGV[1]) "
+                    + "return redis.call('ZCARD', KEYS[1])", Long.class);
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    @Value("${jwt.expiration}")
+    private long expiration;
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private SessionCache sessionCache;
+
+    /**
+     * 生成会话ID（128位随机数，URL安全的Base64编码，22个字符）
+     */
+    public String newSessionId() {
+        byte[] bytes = new byte[16];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * 保存会话（过期时间与Token有效期一致）
+     */
+    public void create(Long userId, String sessionId) {
+        redisUtil.execute(CREATE,
+                List.of(SessionCache.KEY_PREFIX + sessionId, USER_SESSIONS_PREFIX + userId),
+                String.valueOf(userId), String.valueOf(expiration),
+                String.valueOf(System.currentTimeMillis()), sessionId);
+    }
+
+    /**
+     * 删除单个会话（登出）
+     */
+    public void remove(Long userId, String sessionId) {
+        redisUtil.execute(REMOVE,
+                List.of(SessionCache.KEY_PREFIX + sessionId, USER_SESSIONS_PREFIX + userId),
+                sessionId);
+        sessionCache.invalidate(sessionId);
+    }
+
+    /**
+     * 删除用户的全部会话（退出全部登录）
+     * @return 删除的会话数
+     */
+    @SuppressWarnings("unchecked")
+    public int removeAll(Long userId) {
+        List<String> sessionIds = redisUtil.execute(REMOVE_ALL,
+                List.of(USER_SESSIONS_PREFIX + userId), SessionCache.KEY_PREFIX);
+        if (sessionIds == null) {
+            return 0;
+        }
+        for (String sessionId : sessionIds) {
+            sessionCache.invalidate(sessionId);
+        }
+        return sessionIds.size();
+    }
+
+    /**
+     * 统计用户当前有效的会话数
+     */
+    public long count(Long userId) {
+        Long count = redisUtil.execute(COUNT, List.of(USER_SESSIONS_PREFIX + userId),
+                String.valueOf(System.currentTimeMillis()));
+        return count == null ? 0 : count;
+    }
+}
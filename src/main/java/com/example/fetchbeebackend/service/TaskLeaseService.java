@@ -0,0 +1,139 @@
+package com.example.fetchbeebackend.service;
+
+import com.example.fetchbeebackend.entity.TaskLease;
+import com.example.fetchbeebackend.exception.BusinessException;
+import com.example.fetchbeebackend.mapper.TaskLeaseMapper;
+import com.example.fetchbeebackend.vo.TaskLeaseVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 定时任务租约服务
+ * 多节点部署时，同一个定时任务同一时刻只由持有租约的节点执行。
+ * 租约每次易主时防护令牌加1；处理每个订单的事务中先校验令牌并对租约行加共享锁，
+ * 暂停后租约已被其他节点抢占的节点无法再提交旧的处理结果。
+ */
+@Slf4j
+@Service
+public class TaskLeaseService {
+
+    @Autowired
+    private TaskLeaseMapper taskLeaseMapper;
+
+    /**
+     * 租约时长（秒）
+     */
+    @Value("${order.task.lease-seconds:60}")
+    private long leaseSeconds;
+
+    /**
+     * 当前节点标识（主机名:进程号）
+     */
+    private final String owner = resolveOwner();
+
+    /**
+     * 已初始化租约记录的任务
+     */
+    private final Set<String> initializedTasks = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 尝试获取租约（本节点已持有时续约）
+     * @return 获取成功返回租约，其他节点持有时返回null
+     */
+    public TaskLease tryAcquire(String taskName) {
+        LocalDateTime now = LocalDateTime.now();
+        if (initializedTasks.add(taskName)) {
+            taskLeaseMapper.insertIgnore(taskName, now);
+        }
+
+        int result = taskLeaseMapper.tryAcquire(taskName, owner, now, now.plusSeconds(leaseSeconds));
+        if (result <= 0) {
+            return null;
+        }
+        TaskLease lease = taskLeaseMapper.findByTaskName(taskName);
+        if (lease == null || !owner.equals(lease.getOwner())) {
+            return null;
+        }
+        log.debug("获取任务租约：taskName={}, owner={}, fencingToken={}", taskName, owner, lease.getFencingToken());
+        return lease;
+    }
+
+    /**
+     * 续约，令牌变化（期间曾被其他节点抢占）时视为续约失败
+     */
+    public boolean renew(TaskLease lease) {
+        TaskLease renewed = tryAcquire(lease.getTaskName());
+        if (renewed == null || !renewed.getFencingToken().equals(lease.getFencingToken())) {
+            log.warn("任务租约续约失败：taskName={}, owner={}, fencingToken={}",
+                    lease.getTaskName(), owner, lease.getFencingToken());
+            return false;
+        }
+        lease.setExpireTime(renewed.getExpireTime());
+        return true;
+    }
+
+    /**
+     * 释放租约
+     */
+    public void release(TaskLease lease) {
+        try {
+            taskLeaseMapper.release(lease.getTaskName(), owner, lease.getFencingToken(), LocalDateTime.now());
+        } catch (Exception e) {
+            log.error("释放任务租约失败，将在到期后自动失效：taskName={}", lease.getTaskName(), e);
+        }
+    }
+
+    /**
+     * 校验防护令牌（需在处理数据的事务中调用）
+     * 租约有效时对租约行加共享锁直到事务结束，其他节点的抢占会等待本事务提交
+     */
+    public void checkFence(TaskLease lease) {
+        int count = taskLeaseMapper.lockIfValid(lease.getTaskName(), owner, lease.getFencingToken(), LocalDateTime.now());
+        if (count <= 0) {
+            throw new BusinessException("任务租约已失效：" + lease.getTaskName());
+        }
+    }
+
+    /**
+     * 查询全部任务租约
+     */
+    public List<TaskLeaseVO> listLeases() {
+        LocalDateTime now = LocalDateTime.now();
+        List<TaskLeaseVO> result = new ArrayList<>();
+        for (TaskLease lease : taskLeaseMapper.findAll()) {
+            TaskLeaseVO vo = new TaskLeaseVO();
+            BeanUtils.copyProperties(lease, vo);
+            vo.setActive(lease.getExpireTime().isAfter(now));
+            vo.setCurrentNode(owner.equals(lease.getOwner()));
+            result.add(vo);
+        }
+        return result;
+    }
+
+    /**
+     * 当前节点标识
+     */
+    public String getOwner() {
+        return owner;
+    }
+
+    private static String resolveOwner() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + ":" + ProcessHandle.current().pid();
+    }
+}
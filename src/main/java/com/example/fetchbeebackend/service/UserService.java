@@ -1,5 +1,6 @@
 package com.example.fetchbeebackend.service;
 
+import com.example.fetchbeebackend.cache.UserCache;
 import com.example.fetchbeebackend.common.ResultCode;
 import com.example.fetchbeebackend.dto.LoginRequest;
 import com.example.fetchbeebackend.dto.RegisterRequest;
@@ -7,9 +8,10 @@ import com.example.fetchbeebackend.dto.UpdatePasswordRequest;
 import com.example.fetchbeebackend.dto.UpdateUserRequest;
 import com.example.fetchbeebackend.entity.User;
 import com.example.fetchbeebackend.exception.BusinessException;
+import com.example.fetchbeebackend.exception.ConcurrentUpdateException;
 import com.example.fetchbeebackend.mapper.UserMapper;
 import com.example.fetchbeebackend.utils.JwtUtil;
-import com.example.fetchbeebackend.utils.RedisUtil;
+import com.example.fetchbeebackend.utils.OptimisticRetry;
 import com.example.fetchbeebackend.vo.LoginVO;
 import com.example.fetchbeebackend.vo.UserVO;
 import lombok.extern.slf4j.Slf4j;
@@ -20,7 +22,8 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.DigestUtils;
 
 import java.math.BigDecimal;
-import java.util.concurrent.TimeUnit;
+import java.util.Collection;
+import java.util.Map;
 
 /**
  * 用户服务类
@@ -36,9 +39,21 @@ public class UserService {
     private JwtUtil jwtUtil;
     
     @Autowired
-    private RedisUtil redisUtil;
+    private SessionService sessionService;
     
-    private static final String TOKEN_PREFIX = "token:";
+    @Autowired
+    private AvatarService avatarService;
+    
+    @Autowired
+    private UserCache userCache;
+    
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+    
+    /**
+     * 头像引用地址最大长度
+     */
+    private static final int MAX_AVATAR_LENGTH = 255;
     
     /**
      * 用户注册
@@ -46,8 +61,7 @@ public class UserService {
     @Transactional
     public void register(RegisterRequest request) {
         // 1. 检查用户名是否已存在
-        User existUser = userMapper.findByUsername(request.getUsername());
-        if (existUser != null) {
+        if (userMapper.countByUsername(request.getUsername()) > 0) {
             throw new BusinessException(ResultCode.USERNAME_EXISTS, "用户名已存在");
         }
         
@@ -73,7 +87,7 @@ public class UserService {
      */
     public LoginVO login(LoginRequest request) {
         // 1. 查询用户
-        User user = userMapper.findByUsername(request.getUsername());
+        User user = userMapper.findLoginByUsername(request.getUsername());
         if (user == null) {
             throw new BusinessException(ResultCode.USER_NOT_FOUND, "用户不存在");
         }
@@ -89,11 +103,12 @@ public class UserService {
             throw new BusinessException(ResultCode.FORBIDDEN, "账号已被禁用");
         }
         
-        // 4. 生成Token
-        String token = jwtUtil.generateToken(user.getId(), user.getUsername());
+        // 4. 生成Token（jti为会话ID）
+        String sessionId = sessionService.newSessionId();
+        String token = jwtUtil.generateToken(user.getId(), user.getUsername(), sessionId);
         
-        // 5. 将Token存入Redis（7天过期）
-        redisUtil.set(TOKEN_PREFIX + token, user.getId(), 7, TimeUnit.DAYS);
+        // 5. 将会话存入Redis（过期时间与Token一致）
+        sessionService.create(user.getId(), sessionId);
         
         // 6. 构造返回对象
         LoginVO loginVO = new LoginVO();
@@ -113,7 +128,7 @@ public class UserService {
      * 获取用户信息
      */
     public UserVO getUserInfo(Long userId) {
-        User user = userMapper.findById(userId);
+        User user = userCache.getProfile(userId);
         if (user == null) {
             throw new BusinessException(ResultCode.USER_NOT_FOUND, "用户不存在");
         }
@@ -124,36 +139,56 @@ public class UserService {
     }
     
     /**
-     * 更新用户信息
+     * 批量查询用户名（返回 用户ID -> 用户名，经用户名本地缓存，未命中的一次IN查询）
+     */
+    public Map<Long, String> getUsernameMap(Collection<Long> userIds) {
+        return userCache.getUsernames(userIds);
+    }
+    
+    /**
+     * 更新用户信息（与修改密码、学生认证并发时按版本号重试）
      */
-    @Transactional
     public void updateUserInfo(Long userId, UpdateUserRequest request) {
-        // 1. 检查用户是否存在
-        User user = userMapper.findById(userId);
-        if (user == null) {
+        // 内联头像只保存一次，重试时复用同一个引用地址
+        String avatar = resolveAvatar(request.getAvatar());
+        optimisticRetry.run("user.profile", () -> doUpdateUserInfo(userId, request, avatar));
+        userCache.invalidate(userId);
+        
+        log.info("用户信息更新成功：userId={}", userId);
+    }
+    
+    private void doUpdateUserInfo(Long userId, UpdateUserRequest request, String avatar) {
+        // 1. 查询版本号（同时检查用户是否存在）
+        Integer version = userMapper.findVersionById(userId);
+        if (version == null) {
             throw new BusinessException(ResultCode.USER_NOT_FOUND, "用户不存在");
         }
         
-        // 2. 更新信息
+        // 2. 更新信息（版本号未变化时才更新）
+        User user = new User();
+        user.setId(userId);
+        user.setVersion(version);
         user.setPhone(request.getPhone());
         user.setAddress(request.getAddress());
-        user.setAvatar(request.getAvatar());
+        user.setAvatar(avatar);
         
         int result = userMapper.update(user);
         if (result <= 0) {
-            throw new BusinessException("更新失败");
+            throw new ConcurrentUpdateException("用户信息已被修改，请重试");
         }
-        
-        log.info("用户信息更新成功：userId={}", userId);
     }
     
     /**
-     * 修改密码
+     * 修改密码（并发修改时重新校验旧密码）
      */
-    @Transactional
     public void updatePassword(Long userId, UpdatePasswordRequest request) {
-        // 1. 查询用户
-        User user = userMapper.findById(userId);
+        optimisticRetry.run("user.password", () -> doUpdatePassword(userId, request));
+        log.info("用户密码修改成功：userId={}", userId);
+    }
+    
+    private void doUpdatePassword(Long userId, UpdatePasswordRequest request) {
+        // 1. 查询用户密码和版本号
+        User user = userMapper.findCredentialById(userId);
         if (user == null) {
             throw new BusinessException(ResultCode.USER_NOT_FOUND, "用户不存在");
         }
@@ -164,23 +199,49 @@ public class UserService {
             throw new BusinessException(ResultCode.PASSWORD_ERROR, "旧密码错误");
         }
         
-        // 3. 更新密码
+        // 3. 更新密码（版本号未变化时才更新）
         String encryptedNewPassword = encryptPassword(request.getNewPassword());
-        int result = userMapper.updatePassword(userId, encryptedNewPassword);
+        int result = userMapper.updatePassword(userId, user.getVersion(), encryptedNewPassword);
         if (result <= 0) {
-            throw new BusinessException("修改密码失败");
+            throw new ConcurrentUpdateException("密码已被修改，请重试");
         }
-        
-        log.info("用户密码修改成功：userId={}", userId);
     }
     
     /**
      * 用户登出
      */
-    public void logout(String token) {
-        // 从Redis中删除Token
-        redisUtil.delete(TOKEN_PREFIX + token);
-        log.info("用户登出成功");
+    public void logout(Long userId, String sessionId) {
+        // 从Redis中删除会话，并清除各节点的本地会话缓存
+        sessionService.remove(userId, sessionId);
+        log.info("用户登出成功：userId={}", userId);
+    }
+    
+    /**
+     * 退出全部登录（删除用户的所有会话）
+     */
+    public void logoutAll(Long userId) {
+        int count = sessionService.removeAll(userId);
+        log.info("用户退出全部登录：userId={}, sessions={}", userId, count);
+    }
+    
+    /**
+     * 查询用户当前登录的会话数
+     */
+    public long getSessionCount(Long userId) {
+        return sessionService.count(userId);
+    }
+    
+    /**
+     * 内联头像（data URL）保存到头像存储，用户表只保存引用地址
+     */
+    private String resolveAvatar(String avatar) {
+        if (avatarService.isInline(avatar)) {
+            return avatarService.storeDataUrl(avatar);
+        }
+        if (avatar != null && avatar.length() > MAX_AVATAR_LENGTH) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "头像地址过长");
+        }
+        return avatar;
     }
     
     /**
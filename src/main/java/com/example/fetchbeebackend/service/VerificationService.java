@@ -5,13 +5,14 @@ import com.example.fetchbeebackend.dto.ReviewVerificationRequest;
 import com.example.fetchbeebackend.dto.SubmitVerificationRequest;
 import com.example.fetchbeebackend.entity.User;
 import com.example.fetchbeebackend.exception.BusinessException;
+import com.example.fetchbeebackend.exception.ConcurrentUpdateException;
 import com.example.fetchbeebackend.mapper.UserMapper;
+import com.example.fetchbeebackend.utils.OptimisticRetry;
 import com.example.fetchbeebackend.vo.VerificationRecordVO;
 import com.example.fetchbeebackend.vo.VerificationStatusVO;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -26,39 +27,47 @@ public class VerificationService {
     @Autowired
     private UserMapper userMapper;
 
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+
     /**
      * 提交学生认证
      */
-    @Transactional
     public void submitVerification(Long userId, SubmitVerificationRequest request) {
-        User user = userMapper.findById(userId);
-        if (user == null) {
-            throw new BusinessException(ResultCode.USER_NOT_FOUND, "用户不存在");
-        }
+        optimisticRetry.run("user.verification.submit", () -> {
+            User user = userMapper.findVerificationById(userId);
+            if (user == null) {
+                throw new BusinessException(ResultCode.USER_NOT_FOUND, "用户不存在");
+            }
 
-        int result = userMapper.updateVerificationSubmit(userId, request.getVerificationImage());
-        if (result <= 0) {
-            throw new BusinessException("提交认证失败");
-        }
+            int result = userMapper.updateVerificationSubmit(userId, user.getVersion(), request.getVerificationImage());
+            if (result <= 0) {
+                throw new ConcurrentUpdateException("认证信息已被修改，请重试");
+            }
+        });
 
         log.info("用户提交学生认证：userId={}", userId);
     }
 
     /**
-     * 审核学生认证
+     * 审核学生认证（仅待审核的申请可以审核，审核期间用户重新提交时以最新状态重新校验）
      */
-    @Transactional
     public void reviewVerification(Long userId, ReviewVerificationRequest request) {
-        User user = userMapper.findById(userId);
-        if (user == null) {
-            throw new BusinessException(ResultCode.USER_NOT_FOUND, "用户不存在");
-        }
+        optimisticRetry.run("user.verification.review", () -> {
+            User user = userMapper.findVerificationById(userId);
+            if (user == null) {
+                throw new BusinessException(ResultCode.USER_NOT_FOUND, "用户不存在");
+            }
+            if (user.getVerificationStatus() == null || user.getVerificationStatus() != 1) {
+                throw new BusinessException(ResultCode.PARAM_ERROR, "该用户没有待审核的认证申请");
+            }
 
-        int result = userMapper.updateVerificationReview(userId, request.getVerificationStatus(),
-                request.getVerificationRemark());
-        if (result <= 0) {
-            throw new BusinessException("审核失败");
-        }
+            int result = userMapper.updateVerificationReview(userId, user.getVersion(),
+                    request.getVerificationStatus(), request.getVerificationRemark());
+            if (result <= 0) {
+                throw new ConcurrentUpdateException("认证信息已被修改，请刷新后重试");
+            }
+        });
 
         log.info("管理员审核学生认证：userId={}, status={}", userId, request.getVerificationStatus());
     }
@@ -67,7 +76,7 @@ public class VerificationService {
      * 获取用户认证状态
      */
     public VerificationStatusVO getVerificationStatus(Long userId) {
-        User user = userMapper.findById(userId);
+        User user = userMapper.findVerificationById(userId);
         if (user == null) {
             throw new BusinessException(ResultCode.USER_NOT_FOUND, "用户不存在");
         }
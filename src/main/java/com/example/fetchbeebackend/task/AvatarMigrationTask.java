@@ -0,0 +1,107 @@
+package com.example.fetchbeebackend.task;
+
+import com.example.fetchbeebackend.cache.UserCache;
+import com.example.fetchbeebackend.entity.TaskLease;
+import com.example.fetchbeebackend.entity.User;
+import com.example.fetchbeebackend.mapper.UserMapper;
+import com.example.fetchbeebackend.service.AvatarService;
+import com.example.fetchbeebackend.service.TaskLeaseService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 头像迁移任务
+ * 按用户ID分批读取仍以 data URL 内联保存的头像，写入头像存储后将用户表中的头像替换为引用地址。
+ * 需持有任务租约，每批之后续约；扫描到末尾后本节点不再执行，重启后会重新检查一遍。
+ * 解析失败的头像保留原值并记录日志。
+ */
+@Slf4j
+@Component
+public class AvatarMigrationTask {
+
+    private static final String TASK_NAME = "avatar-migration";
+
+    /**
+     * 每批读取的用户数（内联头像较大，批次不宜过大）
+     */
+    private static final int BATCH_SIZE = 50;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private AvatarService avatarService;
+
+    @Autowired
+    private TaskLeaseService taskLeaseService;
+
+    @Autowired
+    private UserCache userCache;
+
+    /**
+     * 本节点是否已扫描完全部用户
+     */
+    private volatile boolean finished;
+
+    /**
+     * 迁移内联头像
+     * 启动1分钟后执行，未完成（如租约被其他节点持有）时每10分钟重试
+     */
+    @Scheduled(initialDelay = 60000, fixedDelay = 600000)
+    public void migrate() {
+        if (finished) {
+            return;
+        }
+
+        TaskLease lease = null;
+        try {
+            lease = taskLeaseService.tryAcquire(TASK_NAME);
+            if (lease == null) {
+                return;
+            }
+
+            long cursorId = 0;
+            int migrated = 0;
+            int failed = 0;
+            while (true) {
+                List<User> users = userMapper.findInlineAvatars(cursorId, BATCH_SIZE);
+                if (users.isEmpty()) {
+                    finished = true;
+                    break;
+                }
+
+                for (User user : users) {
+                    cursorId = user.getId();
+                    try {
+                        String avatar = avatarService.storeDataUrl(user.getAvatar());
+                        if (userMapper.replaceAvatar(user.getId(), user.getAvatar(), avatar) > 0) {
+                            userCache.invalidate(user.getId());
+                            migrated++;
+                        }
+                    } catch (Exception e) {
+                        failed++;
+                        log.warn("迁移头像失败：userId={}, error={}", user.getId(), e.getMessage());
+                    }
+                }
+
+                if (!taskLeaseService.renew(lease)) {
+                    break;
+                }
+            }
+
+            if (migrated > 0 || failed > 0) {
+                log.info("头像迁移完成：迁移={}, 失败={}, 已扫描到末尾={}", migrated, failed, finished);
+            }
+        } catch (Exception e) {
+            log.error("头像迁移任务执行异常", e);
+        } finally {
+            if (lease != null) {
+                taskLeaseService.release(lease);
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.fetchbeebackend.task;
+
+import com.example.fetchbeebackend.entity.NotificationOutbox;
+import com.example.fetchbeebackend.entity.TaskLease;
+import com.example.fetchbeebackend.mapper.NotificationOutboxMapper;
+import com.example.fetchbeebackend.service.NotificationService;
+import com.example.fetchbeebackend.service.TaskLeaseService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 通知投递任务
+ * 每秒从通知发件箱按ID顺序批量读取待投递事件并生成通知。
+ * 多节点部署时只有持有任务租约的节点投递；同一用户的事件按顺序投递，
+ * 某个事件投递失败后按指数退避重试，等待重试期间该用户的后续事件暂停投递。
+ */
+@Slf4j
+@Component
+public class NotificationDispatchTask {
+
+    private static final String TASK_NAME = "notification-dispatch";
+
+    /**
+     * 单次运行最多读取的批数
+     */
+    private static final int MAX_BATCHES_PER_RUN = 10;
+
+    /**
+     * 重试间隔上限（秒）
+     */
+    private static final long MAX_BACKOFF_SECONDS = 600;
+
+    /**
+     * 已投递事件保留天数
+     */
+    private static final int RETENTION_DAYS = 7;
+
+    private static final int PURGE_BATCH_SIZE = 1000;
+
+    @Value("${notification.outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${notification.outbox.max-retries:10}")
+    private int maxRetries;
+
+    @Autowired
+    private NotificationOutboxMapper notificationOutboxMapper;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private TaskLeaseService taskLeaseService;
+
+    /**
+     * 当前持有的租约（每次运行续约，停机时释放）
+     */
+    private volatile TaskLease lease;
+
+    @PreDestroy
+    public void shutdown() {
+        TaskLease current = lease;
+        if (current != null) {
+            taskLeaseService.release(current);
+        }
+    }
+
+    /**
+     * 投递待投递事件
+     * 每秒执行一次
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void dispatch() {
+        try {
+            lease = taskLeaseService.tryAcquire(TASK_NAME);
+            if (lease == null) {
+                return;
+            }
+
+            int delivered = 0;
+            int failed = 0;
+            for (int batch = 0; batch < MAX_BATCHES_PER_RUN; batch++) {
+                List<NotificationOutbox> events = notificationOutboxMapper.findDispatchable(LocalDateTime.now(), batchSize);
+                if (events.isEmpty()) {
+                    break;
+                }
+
+                // 本批中投递失败的用户，其后续事件留到重试之后
+                Set<Long> blockedUsers = new HashSet<>();
+                for (NotificationOutbox event : events) {
+                    if (blockedUsers.contains(event.getUserId())) {
+                        continue;
+                    }
+                    try {
+                        if (notificationService.deliver(event)) {
+                            delivered++;
+                        }
+                    } catch (Exception e) {
+                        failed++;
+                        blockedUsers.add(event.getUserId());
+                        handleFailure(event, e);
+                    }
+                }
+
+                if (events.size() < batchSize || !blockedUsers.isEmpty()) {
+                    break;
+                }
+            }
+
+            if (delivered > 0 || failed > 0) {
+                log.info("通知投递完成：投递={}, 失败={}", delivered, failed);
+            }
+        } catch (Exception e) {
+            log.error("通知投递任务执行异常", e);
+        }
+    }
+
+    /**
+     * 清理已投递的事件
+     * 每天凌晨3点30分执行
+     */
+    @Scheduled(cron = "0 30 3 * * ?")
+    public void purgeDelivered() {
+        try {
+            LocalDateTime beforeTime = LocalDateTime.now().minusDays(RETENTION_DAYS);
+            int total = 0;
+            int deleted;
+            do {
+                deleted = notificationOutboxMapper.deleteDeliveredBefore(beforeTime, PURGE_BATCH_SIZE);
+                total += deleted;
+            } while (deleted >= PURGE_BATCH_SIZE);
+            log.info("清理已投递通知事件完成：count={}", total);
+        } catch (Exception e) {
+            log.error("清理已投递通知事件异常", e);
+        }
+    }
+
+    private void handleFailure(NotificationOutbox event, Exception e) {
+        String error = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+        if (error.length() > 255) {
+            error = error.substring(0, 255);
+        }
+
+        int retryCount = event.getRetryCount() + 1;
+        if (retryCount >= maxRetries) {
+            notificationOutboxMapper.markFailed(event.getId(), error);
+            log.error("通知投递失败，不再重试：eventId={}, userId={}, type={}, error={}",
+                    event.getId(), event.getUserId(), event.getType(), error, e);
+            return;
+        }
+
+        long backoffSeconds = Math.min(1L << Math.min(retryCount, 20), MAX_BACKOFF_SECONDS);
+        notificationOutboxMapper.markRetry(event.getId(), LocalDateTime.now().plusSeconds(backoffSeconds), error);
+        log.warn("通知投递失败，{}秒后重试：eventId={}, userId={}, retryCount={}, error={}",
+                backoffSeconds, event.getId(), event.getUserId(), retryCount, error);
+    }
+}
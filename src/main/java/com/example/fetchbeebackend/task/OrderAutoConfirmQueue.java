@@ -0,0 +1,103 @@
+package com.example.fetchbeebackend.task;
+
+import com.example.fetchbeebackend.entity.Order;
+import com.example.fetchbeebackend.mapper.OrderMapper;
+import com.example.fetchbeebackend.utils.RedisUtil;
+import com.example.fetchbeebackend.utils.TransactionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 订单自动确认延迟队列
+ * Redis 有序集合，成员为订单ID，分数为到期时间（送达时间 + 24小时，毫秒时间戳）。
+ * 标记送达时加入，启动时从待确认订单重建，到期后由 OrderAutoConfirmTask 领取处理。
+ * 领取通过 ZREM 完成，多个节点同时轮询时每个订单只会被一个节点领取。
+ */
+@Slf4j
+@Component
+public class OrderAutoConfirmQueue {
+
+    /**
+     * 送达后自动确认的等待时间
+     */
+    public static final Duration AUTO_CONFIRM_DELAY = Duration.ofHours(24);
+
+    private static final String QUEUE_KEY = "order:auto-confirm";
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    /**
+     * 应用启动后从数据库重建队列（重复加入只会覆盖分数）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        try {
+            List<Order> orders = orderMapper.findDeliveredOrderTimes();
+            for (Order order : orders) {
+                redisUtil.zAdd(QUEUE_KEY, String.valueOf(order.getId()), dueMillis(order.getDeliverTime()));
+            }
+            log.info("订单自动确认队列重建完成：size={}", orders.size());
+        } catch (Exception e) {
+            log.error("订单自动确认队列重建失败，待确认订单将由定时扫描兜底", e);
+        }
+    }
+
+    /**
+     * 加入订单（在事务中调用时，提交后才生效）
+     */
+    public void schedule(Long orderId, LocalDateTime deliverTime) {
+        long dueMillis = dueMillis(deliverTime);
+        TransactionUtil.afterCommit(() -> {
+            try {
+                redisUtil.zAdd(QUEUE_KEY, String.valueOf(orderId), dueMillis);
+            } catch (Exception e) {
+                log.error("加入自动确认队列失败，将由定时扫描兜底：orderId={}", orderId, e);
+            }
+        });
+    }
+
+    /**
+     * 稍后重试（处理失败时重新加入）
+     */
+    public void retryLater(Long orderId, Duration delay) {
+        redisUtil.zAdd(QUEUE_KEY, String.valueOf(orderId), System.currentTimeMillis() + delay.toMillis());
+    }
+
+    /**
+     * 领取已到期的订单ID，最多limit个
+     */
+    public List<Long> claimDue(int limit) {
+        Set<String> members = redisUtil.zRangeByScore(QUEUE_KEY, 0, System.currentTimeMillis(), limit);
+        if (members == null || members.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> orderIds = new ArrayList<>(members.size());
+        for (String member : members) {
+            // 删除成功才算领取到，避免多节点重复处理
+            Long removed = redisUtil.zRemove(QUEUE_KEY, member);
+            if (removed != null && removed > 0) {
+                orderIds.add(Long.valueOf(member));
+            }
+        }
+        return orderIds;
+    }
+
+    private long dueMillis(LocalDateTime deliverTime) {
+        return deliverTime.plus(AUTO_CONFIRM_DELAY).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -1,123 +1,114 @@
 package com.example.fetchbeebackend.task;
 
-import com.example.fetchbeebackend.entity.Order;
-import com.example.fetchbeebackend.enums.NotificationType;
+import com.example.fetchbeebackend.entity.TaskLease;
 import com.example.fetchbeebackend.mapper.OrderMapper;
-import com.example.fetchbeebackend.service.BalanceService;
-import com.example.fetchbeebackend.service.NotificationService;
+import com.example.fetchbeebackend.service.OrderService;
+import com.example.fetchbeebackend.service.TaskLeaseService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 
 /**
  * 订单自动确认定时任务
- * 每小时执行一次，自动确认超过24小时未确认的订单
+ * 每5秒从延迟队列领取到期订单（送达满24小时）并确认；每小时分批扫描一次作为兜底
+ * 兜底扫描需持有任务租约，多节点部署时同一时刻只有一个节点执行；
+ * 延迟队列由各节点共同领取，ZREM 领取保证每个订单只被一个节点处理
+ * 每个订单在独立事务中确认，由 OrderTaskPipeline 并发处理
  */
 @Slf4j
 @Component
 public class OrderAutoConfirmTask {
-    
+
+    private static final String TASK_NAME = "order-auto-confirm";
+
+    /**
+     * 每次领取的最大订单数
+     */
+    private static final int CLAIM_BATCH_SIZE = 100;
+
+    /**
+     * 处理失败后重新入队的延迟
+     */
+    private static final Duration RETRY_DELAY = Duration.ofMinutes(1);
+
     @Autowired
     private OrderMapper orderMapper;
-    
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderAutoConfirmQueue orderAutoConfirmQueue;
+
     @Autowired
-    private BalanceService balanceService;
-    
+    private OrderTaskPipeline orderTaskPipeline;
+
     @Autowired
-    private NotificationService notificationService;
-    
+    private TaskLeaseService taskLeaseService;
+
     /**
-     * 自动确认超时订单
+     * 处理延迟队列中到期的订单
+     * 每5秒执行一次，本批处理完成后才开始下一次领取
+     */
+    @Scheduled(fixedDelay = 5000)
+    public void confirmDueOrders() {
+        List<Long> orderIds;
+        try {
+            orderIds = orderAutoConfirmQueue.claimDue(CLAIM_BATCH_SIZE);
+        } catch (Exception e) {
+            log.error("领取自动确认订单失败", e);
+            return;
+        }
+        if (orderIds.isEmpty()) {
+            return;
+        }
+
+        OrderTaskPipeline.ChunkResult result = orderTaskPipeline.process(TASK_NAME, orderIds, orderId -> {
+            try {
+                return orderService.autoConfirmOrder(orderId);
+            } catch (RuntimeException e) {
+                orderAutoConfirmQueue.retryLater(orderId, RETRY_DELAY);
+                throw e;
+            }
+        });
+        log.info("到期自动确认订单处理完成：到期={}, 确认={}, 失败={}", result.total(), result.success(), result.failed());
+    }
+
+    /**
+     * 自动确认超时订单（兜底扫描）
      * 每小时执行一次
      */
     @Scheduled(cron = "0 0 * * * ?")
-    @Transactional(rollbackFor = Exception.class)
     public void autoConfirmOrders() {
         log.info("开始执行订单自动确认任务");
-        
+
+        TaskLease lease = null;
         try {
-            // 查询24小时前送达但未确认的订单
-            LocalDateTime beforeTime = LocalDateTime.now().minusHours(24);
-            List<Order> orders = orderMapper.findDeliveredOrdersBeforeTime(beforeTime);
-            
-            if (orders == null || orders.isEmpty()) {
-                log.info("没有需要自动确认的订单");
+            lease = taskLeaseService.tryAcquire(TASK_NAME);
+            if (lease == null) {
+                log.info("任务租约由其他节点持有，跳过本次执行：task={}", TASK_NAME);
                 return;
             }
-            
-            log.info("找到{}个需要自动确认的订单", orders.size());
-            
-            int successCount = 0;
-            int failCount = 0;
-            
-            for (Order order : orders) {
-                try {
-                    // 判断是否超时，计算实际支付金额
-                    LocalDateTime now = LocalDateTime.now();
-                    BigDecimal actualReward;
-                    boolean isOvertime = now.isAfter(order.getDeadline());
-                    
-                    if (isOvertime) {
-                        // 超时完成，按80%支付
-                        actualReward = order.getReward().multiply(new BigDecimal("0.8"));
-                        log.warn("订单超时完成（自动确认）：orderId={}, 原报酬={}, 实际支付={}", 
-                                order.getId(), order.getReward(), actualReward);
-                    } else {
-                        // 按时完成，全额支付
-                        actualReward = order.getReward();
-                    }
-                    
-                    // 更新订单状态为已完成
-                    int result = orderMapper.completeOrder(order.getId(), actualReward, now);
-                    if (result <= 0) {
-                        log.error("自动确认订单失败：orderId={}", order.getId());
-                        failCount++;
-                        continue;
-                    }
-                    
-                    // 给接单者转账
-                    balanceService.transfer(order.getReceiverId(), actualReward, order.getId(), 
-                            "完成订单收入（自动确认）：" + order.getOrderNo() + (isOvertime ? "（超时）" : ""));
-                    
-                    // 通知发布者：订单已自动确认
-                    notificationService.createNotification(
-                        order.getPublisherId(),
-                        NotificationType.ORDER_AUTO_CONFIRMED,
-                        "订单已自动确认",
-                        "订单【" + order.getOrderNo() + "】已自动确认完成",
-                        order.getId()
-                    );
-                    
-                    // 通知接单者：订单已完成，报酬已到账
-                    notificationService.createNotification(
-                        order.getReceiverId(),
-                        NotificationType.ORDER_COMPLETED,
-                        "订单已完成",
-                        "订单【" + order.getOrderNo() + "】已自动确认完成，报酬 ¥" + actualReward + " 已到账" + (isOvertime ? "（超时）" : ""),
-                        order.getId()
-                    );
-                    
-                    log.info("自动确认订单成功：orderId={}, orderNo={}, receiverId={}, actualReward={}, isOvertime={}", 
-                            order.getId(), order.getOrderNo(), order.getReceiverId(), actualReward, isOvertime);
-                    
-                    successCount++;
-                    
-                } catch (Exception e) {
-                    log.error("自动确认订单异常：orderId={}, error={}", order.getId(), e.getMessage(), e);
-                    failCount++;
-                }
-            }
-            
-            log.info("订单自动确认任务完成：总数={}, 成功={}, 失败={}", orders.size(), successCount, failCount);
-            
+
+            // 查询24小时前送达但未确认的订单
+            LocalDateTime beforeTime = LocalDateTime.now().minus(OrderAutoConfirmQueue.AUTO_CONFIRM_DELAY);
+            orderTaskPipeline.run(TASK_NAME, lease,
+                    last -> orderMapper.findDeliveredOrdersBeforeTime(beforeTime,
+                            last == null ? null : last.getDeliverTime(),
+                            last == null ? null : last.getId(),
+                            orderTaskPipeline.getChunkSize()),
+                    orderService::autoConfirmOrder);
         } catch (Exception e) {
             log.error("订单自动确认任务执行异常", e);
+        } finally {
+            if (lease != null) {
+                taskLeaseService.release(lease);
+            }
         }
     }
 }
@@ -1,95 +1,89 @@
 package com.example.fetchbeebackend.task;
 
-import com.example.fetchbeebackend.entity.Order;
-import com.example.fetchbeebackend.enums.NotificationType;
-import com.example.fetchbeebackend.enums.OrderStatus;
+import com.example.fetchbeebackend.entity.TaskLease;
 import com.example.fetchbeebackend.mapper.OrderMapper;
-import com.example.fetchbeebackend.service.BalanceService;
-import com.example.fetchbeebackend.service.NotificationService;
+import com.example.fetchbeebackend.service.OrderService;
+import com.example.fetchbeebackend.service.TaskLeaseService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 /**
  * 订单过期定时任务
- * 每小时执行一次，自动取消过期未接单的订单
+ * 每秒从时间轮取出到期订单并取消；每30分钟分批扫描一次作为兜底
+ * 兜底扫描需持有任务租约，多节点部署时同一时刻只有一个节点执行；
+ * 时间轮在各节点都会处理，依靠订单状态条件更新保证每个订单只取消一次
+ * 每个订单在独立事务中取消，由 OrderTaskPipeline 并发处理
  */
 @Slf4j
 @Component
 public class OrderExpireTask {
 
+    private static final String TASK_NAME = "order-expire";
+
     @Autowired
     private OrderMapper orderMapper;
 
     @Autowired
-    private BalanceService balanceService;
+    private OrderService orderService;
+
+    @Autowired
+    private OrderExpireWheel orderExpireWheel;
 
     @Autowired
-    private NotificationService notificationService;
+    private OrderTaskPipeline orderTaskPipeline;
+
+    @Autowired
+    private TaskLeaseService taskLeaseService;
 
     /**
-     * 自动取消过期订单
-     * 每10分钟执行一次
+     * 处理时间轮中到期的订单
+     * 每秒执行一次
      */
-    @Scheduled(cron = "0 */10 * * * ?")
-    @Transactional(rollbackFor = Exception.class)
+    @Scheduled(fixedDelay = 1000)
+    public void expireDueOrders() {
+        List<Long> orderIds = orderExpireWheel.pollExpired();
+        if (orderIds.isEmpty()) {
+            return;
+        }
+
+        OrderTaskPipeline.ChunkResult result = orderTaskPipeline.process(TASK_NAME, orderIds, orderService::expireOrder);
+        log.info("时间轮到期订单处理完成：到期={}, 取消={}, 失败={}", result.total(), result.success(), result.failed());
+    }
+
+    /**
+     * 自动取消过期订单（兜底扫描）
+     * 每30分钟执行一次
+     */
+    @Scheduled(cron = "0 */30 * * * ?")
     public void expireOrders() {
         log.info("开始执行订单过期任务");
 
+        TaskLease lease = null;
         try {
-            LocalDateTime now = LocalDateTime.now();
-            List<Order> orders = orderMapper.findExpiredPendingOrders(now);
-
-            if (orders == null || orders.isEmpty()) {
-                log.info("没有需要过期的订单");
+            lease = taskLeaseService.tryAcquire(TASK_NAME);
+            if (lease == null) {
+                log.info("任务租约由其他节点持有，跳过本次执行：task={}", TASK_NAME);
                 return;
             }
 
-            log.info("找到{}个过期订单", orders.size());
-
-            int successCount = 0;
-            int failCount = 0;
-
-            for (Order order : orders) {
-                try {
-                    int result = orderMapper.cancelOrder(order.getId(), "订单已过期，无人接单");
-                    if (result <= 0) {
-                        log.error("取消过期订单失败：orderId={}", order.getId());
-                        failCount++;
-                        continue;
-                    }
-
-                    balanceService.refund(order.getPublisherId(), order.getReward(), order.getId(),
-                            "订单过期退款：" + order.getOrderNo());
-
-                    notificationService.createNotification(
-                        order.getPublisherId(),
-                        NotificationType.ORDER_EXPIRED,
-                        "订单已过期",
-                        "订单【" + order.getOrderNo() + "】已过期，报酬 ¥" + order.getReward() + " 已退回",
-                        order.getId()
-                    );
-
-                    log.info("取消过期订单成功：orderId={}, orderNo={}, publisherId={}, reward={}",
-                            order.getId(), order.getOrderNo(), order.getPublisherId(), order.getReward());
-
-                    successCount++;
-
-                } catch (Exception e) {
-                    log.error("取消过期订单异常：orderId={}, error={}", order.getId(), e.getMessage(), e);
-                    failCount++;
-                }
-            }
-
-            log.info("订单过期任务完成：总数={}, 成功={}, 失败={}", orders.size(), successCount, failCount);
-
+            LocalDateTime now = LocalDateTime.now();
+            orderTaskPipeline.run(TASK_NAME, lease,
+                    last -> orderMapper.findExpiredPendingOrders(now,
+                            last == null ? null : last.getDeadline(),
+                            last == null ? null : last.getId(),
+                            orderTaskPipeline.getChunkSize()),
+                    orderService::expireOrder);
         } catch (Exception e) {
             log.error("订单过期任务执行异常", e);
+        } finally {
+            if (lease != null) {
+                taskLeaseService.release(lease);
+            }
         }
     }
 }
@@ -0,0 +1,72 @@
+package com.example.fetchbeebackend.task;
+
+import com.example.fetchbeebackend.entity.Order;
+import com.example.fetchbeebackend.mapper.OrderMapper;
+import com.example.fetchbeebackend.utils.HierarchicalTimingWheel;
+import com.example.fetchbeebackend.utils.TransactionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * 订单过期时间轮
+ * 启动时加载全部待接单订单的截止时间，发布订单时加入，到期后由 OrderExpireTask 取出处理。
+ * 时间轮：每格1秒，每层64格，共4层（可覆盖约194天）。
+ */
+@Slf4j
+@Component
+public class OrderExpireWheel {
+
+    private static final long TICK_MS = 1000L;
+
+    private static final int WHEEL_SIZE = 64;
+
+    private static final int LEVELS = 4;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    private final HierarchicalTimingWheel<Long> wheel =
+            new HierarchicalTimingWheel<>(TICK_MS, WHEEL_SIZE, LEVELS, System.currentTimeMillis());
+
+    /**
+     * 应用启动后从数据库加载待接单订单的截止时间
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        try {
+            List<Order> orders = orderMapper.findPendingOrderDeadlines();
+            for (Order order : orders) {
+                wheel.schedule(order.getId(), toMillis(order.getDeadline()));
+            }
+            log.info("订单过期时间轮加载完成：size={}", orders.size());
+        } catch (Exception e) {
+            log.error("订单过期时间轮加载失败，过期订单将由定时扫描兜底", e);
+        }
+    }
+
+    /**
+     * 加入订单（在事务中调用时，提交后才生效）
+     */
+    public void schedule(Long orderId, LocalDateTime deadline) {
+        long deadlineMillis = toMillis(deadline);
+        TransactionUtil.afterCommit(() -> wheel.schedule(orderId, deadlineMillis));
+    }
+
+    /**
+     * 取出已到截止时间的订单ID
+     */
+    public List<Long> pollExpired() {
+        return wheel.advanceTo(System.currentTimeMillis());
+    }
+
+    private long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
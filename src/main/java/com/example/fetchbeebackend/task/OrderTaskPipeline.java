@@ -0,0 +1,186 @@
+package com.example.fetchbeebackend.task;
+
+import com.example.fetchbeebackend.entity.Order;
+import com.example.fetchbeebackend.entity.TaskLease;
+import com.example.fetchbeebackend.service.TaskLeaseService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 订单定时任务处理管道
+ * 按游标分批读取订单，每批在固定大小的线程池中并发处理，每个订单由处理函数在独立的短事务中完成；
+ * 单次运行最多处理 max-per-run 个订单，剩余的留给下一次运行。
+ * 传入租约时，每个订单的事务中先校验防护令牌，每批处理完成后续约，续约失败立即停止。
+ * 每次运行输出吞吐日志，并记录 Micrometer 指标：
+ * order.task.orders（计数，标签 task/result）、order.task.run（耗时，标签 task）。
+ */
+@Slf4j
+@Component
+public class OrderTaskPipeline {
+
+    @Value("${order.task.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${order.task.max-per-run:5000}")
+    private int maxPerRun;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TaskLeaseService taskLeaseService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final ExecutorService executor;
+
+    /**
+     * 单批处理结果
+     */
+    public record ChunkResult(int total, int success, int skipped, int failed) {
+    }
+
+    public OrderTaskPipeline(@Value("${order.task.parallelism:4}") int parallelism) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "order-task-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 分批读取并处理订单
+     * @param task 任务标识（用于日志和指标标签）
+     * @param lease 任务租约
+     * @param chunkLoader 读取下一批订单，参数为上一批的最后一条（首批为null）
+     * @param processor 处理单个订单，返回是否处理成功（状态已变化等跳过时返回false）
+     */
+    public void run(String task, TaskLease lease, Function<Order, List<Order>> chunkLoader, Predicate<Long> processor) {
+        long start = System.nanoTime();
+        int total = 0;
+        int success = 0;
+        int skipped = 0;
+        int failed = 0;
+        Order last = null;
+
+        while (total < maxPerRun) {
+            List<Order> orders = chunkLoader.apply(last);
+            if (orders.isEmpty()) {
+                break;
+            }
+            if (total + orders.size() > maxPerRun) {
+                orders = orders.subList(0, maxPerRun - total);
+            }
+
+            List<Long> orderIds = new ArrayList<>(orders.size());
+            for (Order order : orders) {
+                orderIds.add(order.getId());
+            }
+            ChunkResult result = process(task, lease, orderIds, processor);
+            total += result.total();
+            success += result.success();
+            skipped += result.skipped();
+            failed += result.failed();
+
+            if (orders.size() < chunkSize) {
+                break;
+            }
+            if (!taskLeaseService.renew(lease)) {
+                log.warn("订单任务租约已失效，停止本次运行：task={}", task);
+                break;
+            }
+            last = orders.get(orders.size() - 1);
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        Timer.builder("order.task.run")
+                .tag("task", task)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        if (total == 0) {
+            log.info("订单任务完成：task={}, 没有需要处理的订单，耗时={}ms", task, elapsedMs);
+            return;
+        }
+        log.info("订单任务完成：task={}, 总数={}, 成功={}, 跳过={}, 失败={}, 耗时={}ms, 吞吐={}/s{}",
+                task, total, success, skipped, failed, elapsedMs,
+                elapsedMs == 0 ? total : total * 1000L / elapsedMs,
+                total >= maxPerRun ? "（达到单次上限，剩余订单下次处理）" : "");
+    }
+
+    /**
+     * 并发处理一批订单，全部完成后返回（不校验租约，处理函数须自行保证并发安全）
+     */
+    public ChunkResult process(String task, List<Long> orderIds, Predicate<Long> processor) {
+        return process(task, null, orderIds, processor);
+    }
+
+    /**
+     * 并发处理一批订单，全部完成后返回
+     * 传入租约时，校验防护令牌和处理订单在同一事务中完成
+     */
+    public ChunkResult process(String task, TaskLease lease, List<Long> orderIds, Predicate<Long> processor) {
+        Predicate<Long> fencedProcessor = lease == null ? processor : orderId ->
+                Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                    taskLeaseService.checkFence(lease);
+                    return processor.test(orderId);
+                }));
+
+        AtomicInteger success = new AtomicInteger();
+        AtomicInteger skipped = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(orderIds.size());
+        for (Long orderId : orderIds) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                try {
+                    if (fencedProcessor.test(orderId)) {
+                        success.incrementAndGet();
+                    } else {
+                        skipped.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    log.error("订单任务处理异常：task={}, orderId={}, error={}", task, orderId, e.getMessage(), e);
+                    failed.incrementAndGet();
+                }
+            }, executor));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        meterRegistry.counter("order.task.orders", "task", task, "result", "success").increment(success.get());
+        meterRegistry.counter("order.task.orders", "task", task, "result", "skipped").increment(skipped.get());
+        meterRegistry.counter("order.task.orders", "task", task, "result", "failed").increment(failed.get());
+        return new ChunkResult(orderIds.size(), success.get(), skipped.get(), failed.get());
+    }
+
+    /**
+     * 每批读取的订单数
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+}
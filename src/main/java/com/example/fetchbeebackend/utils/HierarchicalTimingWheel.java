@@ -0,0 +1,132 @@
+package com.example.fetchbeebackend.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分层时间轮
+ * 第0层每格一个tick，第L层每格 wheelSize^L 个tick；任务按到期时间放入能容纳它的最低层，
+ * 高层格子到点时下沉到低层，第0层格子到点时任务到期。添加和到期均为O(1)。
+ * 超出最高层范围的任务暂存在溢出队列，最高层每转一格时重新放置。
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final long tickMs;
+
+    private final int wheelSize;
+
+    private final int levels;
+
+    /**
+     * 第L层每格对应的tick数
+     */
+    private final long[] units;
+
+    private final ArrayDeque<Entry<T>>[][] buckets;
+
+    private final List<Entry<T>> overflow = new ArrayList<>();
+
+    private final List<T> due = new ArrayList<>();
+
+    /**
+     * 当前tick（绝对值 = 毫秒时间戳 / tickMs）
+     */
+    private long currentTick;
+
+    private int size;
+
+    private record Entry<T>(T task, long tick) {
+    }
+
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, int levels, long startMillis) {
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.levels = levels;
+        this.units = new long[levels];
+        this.buckets = new ArrayDeque[levels][wheelSize];
+        long unit = 1;
+        for (int level = 0; level < levels; level++) {
+            units[level] = unit;
+            unit *= wheelSize;
+            for (int slot = 0; slot < wheelSize; slot++) {
+                buckets[level][slot] = new ArrayDeque<>();
+            }
+        }
+        this.currentTick = startMillis / tickMs;
+    }
+
+    /**
+     * 添加任务，到期时间早于当前时间的任务在下一次推进时立即到期
+     */
+    public synchronized void schedule(T task, long deadlineMillis) {
+        // 向上取整，保证不会早于截止时间触发
+        long tick = (deadlineMillis + tickMs - 1) / tickMs;
+        place(new Entry<>(task, tick));
+        size++;
+    }
+
+    /**
+     * 推进时间轮到指定时间，返回期间到期的任务
+     */
+    public synchronized List<T> advanceTo(long nowMillis) {
+        long targetTick = nowMillis / tickMs;
+        while (currentTick < targetTick) {
+            currentTick++;
+            // 从高层到低层依次下沉到点的格子
+            for (int level = levels - 1; level >= 1; level--) {
+                if (currentTick % units[level] == 0) {
+                    cascade(level);
+                }
+            }
+            ArrayDeque<Entry<T>> bucket = buckets[0][(int) (currentTick % wheelSize)];
+            while (!bucket.isEmpty()) {
+                due.add(bucket.poll().task());
+            }
+        }
+
+        if (due.isEmpty()) {
+            return List.of();
+        }
+        List<T> result = new ArrayList<>(due);
+        due.clear();
+        size -= result.size();
+        return result;
+    }
+
+    /**
+     * 当前待到期的任务数
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private void cascade(int level) {
+        ArrayDeque<Entry<T>> bucket = buckets[level][(int) ((currentTick / units[level]) % wheelSize)];
+        List<Entry<T>> entries = new ArrayList<>(bucket);
+        bucket.clear();
+        if (level == levels - 1 && !overflow.isEmpty()) {
+            entries.addAll(overflow);
+            overflow.clear();
+        }
+        for (Entry<T> entry : entries) {
+            place(entry);
+        }
+    }
+
+    private void place(Entry<T> entry) {
+        long delta = entry.tick() - currentTick;
+        if (delta <= 0) {
+            due.add(entry.task());
+            return;
+        }
+        for (int level = 0; level < levels; level++) {
+            if (delta < units[level] * wheelSize) {
+                buckets[level][(int) ((entry.tick() / units[level]) % wheelSize)].add(entry);
+                return;
+            }
+        }
+        overflow.add(entry);
+    }
+}
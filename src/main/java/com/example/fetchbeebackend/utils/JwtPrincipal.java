@@ -0,0 +1,10 @@
+package com.example.fetchbeebackend.utils;
+
+import java.util.Date;
+
+/**
+ * 已验证的Token信息（签名和有效期均已校验）
+ * sessionId 为 Token 的 jti，对应 Redis 中的登录会话
+ */
+public record JwtPrincipal(Long userId, String username, String sessionId, Date expiration) {
+}
@@ -1,8 +1,11 @@
 package com.example.fetchbeebackend.utils;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -14,6 +17,7 @@ import java.util.Map;
 
 /**
  * JWT工具类
+ * 签名密钥和解析器在启动时构建一次，之后复用（JwtParser 线程安全）
  */
 @Component
 public class JwtUtil {
@@ -24,17 +28,26 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private Long expiration;
     
+    private SecretKey signKey;
+    
+    private JwtParser parser;
+    
     /**
-     * 生成密钥
+     * 初始化密钥和解析器
      */
-    private SecretKey getSignKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    @PostConstruct
+    public void init() {
+        signKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser()
+                .verifyWith(signKey)
+                .build();
     }
     
     /**
      * 生成Token
+     * @param sessionId 会话ID，写入 jti
      */
-    public String generateToken(Long userId, String username) {
+    public String generateToken(Long userId, String username, String sessionId) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", userId);
         claims.put("username", username);
@@ -45,9 +58,10 @@ public class JwtUtil {
         return Jwts.builder()
                 .claims(claims)
                 .subject(username)
+                .id(sessionId)
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSignKey())
+                .signWith(signKey)
                 .compact();
     }
     
@@ -55,11 +69,24 @@ public class JwtUtil {
      * 从Token中获取Claims
      */
     public Claims getClaimsFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSignKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
+    }
+    
+    /**
+     * 解析并验证Token（只解析一次，同时校验签名和有效期）
+     * @return Token无效、已过期或不含会话ID时返回null
+     */
+    public JwtPrincipal parseToken(String token) {
+        try {
+            Claims claims = getClaimsFromToken(token);
+            Long userId = claims.get("userId", Long.class);
+            if (userId == null || claims.getId() == null) {
+                return null;
+            }
+            return new JwtPrincipal(userId, claims.getSubject(), claims.getId(), claims.getExpiration());
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
     }
     
     /**
@@ -95,12 +122,8 @@ public class JwtUtil {
      * 验证Token
      */
     public boolean validateToken(String token) {
-        try {
-            getClaimsFromToken(token);
-            return !isTokenExpired(token);
-        } catch (Exception e) {
-            return false;
-        }
+        // 解析时已校验有效期，过期的Token会解析失败
+        return parseToken(token) != null;
     }
 }
 
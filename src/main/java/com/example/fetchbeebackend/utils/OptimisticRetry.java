@@ -0,0 +1,79 @@
+package com.example.fetchbeebackend.utils;
+
+import com.example.fetchbeebackend.exception.ConcurrentUpdateException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 乐观锁重试
+ * 每次尝试在独立事务中执行“读取 -> 校验 -> 按版本号条件更新”，抛出 ConcurrentUpdateException 时回滚，
+ * 等待一段时间（指数退避加随机抖动）后重新读取并重试。
+ * 已处于事务中时不重试（同一事务内重新读取仍是旧快照），冲突直接抛给外层。
+ */
+@Slf4j
+@Component
+public class OptimisticRetry {
+
+    @Value("${concurrency.retry.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${concurrency.retry.backoff-ms:20}")
+    private long backoffMs;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 执行并在版本冲突时重试
+     */
+    public <T> T execute(String name, Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return action.get();
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (ConcurrentUpdateException e) {
+                if (attempt >= maxAttempts) {
+                    meterRegistry.counter("concurrency.conflict", "name", name, "result", "exhausted").increment();
+                    log.warn("并发修改冲突，重试次数已用尽：name={}, attempts={}", name, attempt);
+                    throw e;
+                }
+                meterRegistry.counter("concurrency.conflict", "name", name, "result", "retried").increment();
+                sleep(attempt);
+            }
+        }
+    }
+
+    /**
+     * 执行并在版本冲突时重试（无返回值）
+     */
+    public void run(String name, Runnable action) {
+        execute(name, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private void sleep(int attempt) {
+        long delay = backoffMs << (attempt - 1);
+        delay += ThreadLocalRandom.current().nextLong(delay + 1);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.fetchbeebackend.utils;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 订单号生成器
+ * 格式：FO + yyyyMMddHHmmssSSS(17位) + 节点编号(3位) + 毫秒内序列号(4位)，共26位。
+ * 同一节点内单调递增，不同节点通过节点编号区分，无锁且基本不产生额外对象。
+ * 节点编号优先使用 order.node-id；未配置时启动时在 Redis 中租用一个空闲编号（order:node:编号），
+ * 定期续期，关闭时释放；Redis 不可用或编号已全部占用时启动失败，不会退回可能冲突的编号。
+ * 租用的编号只在本地租期内使用：本地租期从最近一次租用/续期成功的请求发出时起算，比 Redis 中的过期时间短一个续期间隔，
+ * 续期连续失败导致本地租期到期后，生成订单号时同步续期，仍失败则拒绝生成，保证编号在 Redis 中过期、
+ * 被其他实例租用之前本实例已停止使用。
+ */
+@Slf4j
+@Component
+public class OrderNoGenerator {
+
+    private static final int MAX_NODE_ID = 999;
+
+    /**
+     * 每毫秒最多生成的序列号（超出时借用下一毫秒）
+     */
+    private static final int MAX_SEQUENCE = 9999;
+
+    private static final int SEQUENCE_BITS = 14;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final int ORDER_NO_LENGTH = 26;
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private static final String NODE_KEY_PREFIX = "order:node:";
+
+    /**
+     * 分配编号的起点计数器，使各实例从不同位置开始尝试
+     */
+    private static final String NODE_SEQ_KEY = "order:node-seq";
+
+    /**
+     * 仍由本实例持有时延长租期
+     */
+    private static final RedisScript<Long> RENEW = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('PEXPIRE', KEYS[1], ARGV[2]) "
+                    + "end "
+                    + "return 0", Long.class);
+
+    /**
+     * 仍由本实例持有时删除
+     */
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('DEL', KEYS[1]) "
+                    + "end "
+                    + "return 0", Long.class);
+
+    /**
+     * 配置的节点编号，未配置时从 Redis 租用
+     */
+    @Value("${order.node-id:-1}")
+    private int configuredNodeId;
+
+    /**
+     * 租用节点编号的租期（秒），续期间隔为租期的三分之一
+     */
+    @Value("${order.node-lease-seconds:60}")
+    private long leaseSeconds;
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    private volatile int nodeId;
+
+    /**
+     * 租用编号时写入的实例标识（使用配置编号时为null）
+     */
+    private String leaseToken;
+
+    /**
+     * 本地租期截止时间（System.nanoTime），到期后不再使用当前编号
+     */
+    private volatile long leaseDeadlineNanos;
+
+    /**
+     * 高位为毫秒时间戳，低位为序列号
+     */
+    private final AtomicLong state = new AtomicLong();
+
+    /**
+     * 当前秒的 yyyyMMddHHmmss 缓存，每秒只格式化一次
+     */
+    private volatile SecondPrefix secondPrefix = new SecondPrefix(Long.MIN_VALUE, null);
+
+    private record SecondPrefix(long epochSecond, char[] digits) {
+    }
+
+    @PostConstruct
+    public void init() {
+        if (configuredNodeId > MAX_NODE_ID) {
+            throw new IllegalStateException("order.node-id 必须在 0-" + MAX_NODE_ID + " 之间：" + configuredNodeId);
+        }
+        if (configuredNodeId >= 0) {
+            nodeId = configuredNodeId;
+        } else {
+            leaseToken = UUID.randomUUID().toString();
+            long requestedAt = System.nanoTime();
+            nodeId = acquireNodeId();
+            leaseDeadlineNanos = requestedAt + localLeaseNanos();
+        }
+        log.info("订单号生成器初始化完成：nodeId={}, leased={}", nodeId, leaseToken != null);
+    }
+
+    /**
+     * 定期续期租用的节点编号
+     */
+    @Scheduled(fixedDelayString = "#{${order.node-lease-seconds:60} * 1000 / 3}")
+    public void renewNodeId() {
+        if (leaseToken == null) {
+            return;
+        }
+        try {
+            renewLease();
+        } catch (Exception e) {
+            log.warn("节点编号续期失败：nodeId={}, error={}", nodeId, e.getMessage());
+        }
+    }
+
+    /**
+     * 续期；租约已丢失（如 Redis 数据丢失后被其他实例占用）时立即停止使用当前编号并重新租用
+     */
+    private synchronized void renewLease() {
+        long start = System.nanoTime();
+        Long renewed = redisUtil.execute(RENEW, List.of(NODE_KEY_PREFIX + nodeId),
+                leaseToken, String.valueOf(TimeUnit.SECONDS.toMillis(leaseSeconds)));
+        if (renewed != null && renewed != 0) {
+            leaseDeadlineNanos = start + localLeaseNanos();
+            return;
+        }
+
+        leaseDeadlineNanos = start;
+        int oldNodeId = nodeId;
+        long requestedAt = System.nanoTime();
+        nodeId = acquireNodeId();
+        leaseDeadlineNanos = requestedAt + localLeaseNanos();
+        log.warn("节点编号租约已丢失，重新租用：oldNodeId={}, nodeId={}", oldNodeId, nodeId);
+    }
+
+    /**
+     * 本地租期已到期时同步续期，失败时拒绝生成订单号
+     */
+    private synchronized void ensureLease() {
+        if (System.nanoTime() - leaseDeadlineNanos < 0) {
+            return;
+        }
+        try {
+            renewLease();
+        } catch (Exception e) {
+            throw new IllegalStateException("节点编号租约已过期且无法续期，暂停生成订单号：nodeId=" + nodeId, e);
+        }
+    }
+
+    /**
+     * 本地租期：Redis 租期减去一个续期间隔，容忍一次续期失败
+     */
+    private long localLeaseNanos() {
+        long leaseNanos = TimeUnit.SECONDS.toNanos(leaseSeconds);
+        return leaseNanos - leaseNanos / 3;
+    }
+
+    @PreDestroy
+    public void releaseNodeId() {
+        if (leaseToken == null) {
+            return;
+        }
+        try {
+            redisUtil.execute(RELEASE, List.of(NODE_KEY_PREFIX + nodeId), leaseToken);
+        } catch (Exception e) {
+            log.warn("释放节点编号失败，等待租约过期：nodeId={}, error={}", nodeId, e.getMessage());
+        }
+    }
+
+    /**
+     * 从计数器给出的起点开始依次尝试占用空闲编号
+     */
+    private int acquireNodeId() {
+        long start;
+        try {
+            start = redisUtil.increment(NODE_SEQ_KEY);
+        } catch (Exception e) {
+            throw new IllegalStateException("未配置 order.node-id 且无法从 Redis 租用节点编号", e);
+        }
+        for (int i = 0; i <= MAX_NODE_ID; i++) {
+            int candidate = (int) Math.floorMod(start + i, (long) MAX_NODE_ID + 1);
+            if (Boolean.TRUE.equals(redisUtil.setStringIfAbsent(NODE_KEY_PREFIX + candidate, leaseToken,
+                    leaseSeconds, TimeUnit.SECONDS))) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("节点编号已全部占用，无法生成唯一订单号");
+    }
+
+    /**
+     * 生成订单号
+     */
+    public String nextOrderNo() {
+        if (leaseToken != null && System.nanoTime() - leaseDeadlineNanos >= 0) {
+            ensureLease();
+        }
+
+        long next = state.updateAndGet(prev -> {
+            long now = System.currentTimeMillis();
+            long lastMillis = prev >>> SEQUENCE_BITS;
+            if (now > lastMillis) {
+                return now << SEQUENCE_BITS;
+            }
+            // 同一毫秒内（或时钟回拨）继续递增，序列号用尽时借用下一毫秒
+            if ((prev & SEQUENCE_MASK) < MAX_SEQUENCE) {
+                return prev + 1;
+            }
+            return (lastMillis + 1) << SEQUENCE_BITS;
+        });
+
+        long millis = next >>> SEQUENCE_BITS;
+        int sequence = (int) (next & SEQUENCE_MASK);
+
+        char[] chars = new char[ORDER_NO_LENGTH];
+        chars[0] = 'F';
+        chars[1] = 'O';
+        System.arraycopy(prefixOf(Math.floorDiv(millis, 1000L)), 0, chars, 2, 14);
+        writeDigits(chars, 16, (int) Math.floorMod(millis, 1000L), 3);
+        writeDigits(chars, 19, nodeId, 3);
+        writeDigits(chars, 22, sequence, 4);
+        return new String(chars);
+    }
+
+    /**
+     * 获取指定秒的 yyyyMMddHHmmss
+     */
+    private char[] prefixOf(long epochSecond) {
+        SecondPrefix cached = secondPrefix;
+        if (cached.epochSecond() == epochSecond) {
+            return cached.digits();
+        }
+
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZONE);
+        char[] digits = new char[14];
+        writeDigits(digits, 0, time.getYear(), 4);
+        writeDigits(digits, 4, time.getMonthValue(), 2);
+        writeDigits(digits, 6, time.getDayOfMonth(), 2);
+        writeDigits(digits, 8, time.getHour(), 2);
+        writeDigits(digits, 10, time.getMinute(), 2);
+        writeDigits(digits, 12, time.getSecond(), 2);
+        secondPrefix = new SecondPrefix(epochSecond, digits);
+        return digits;
+    }
+
+    /**
+     * 将数字按固定位数（左补0）写入字符数组
+     */
+    private static void writeDigits(char[] chars, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
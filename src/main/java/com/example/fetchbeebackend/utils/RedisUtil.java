@@ -2,8 +2,12 @@ package com.example.fetchbeebackend.utils;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -15,6 +19,9 @@ public class RedisUtil {
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
     
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    
     /**
      * 设置缓存
      */
@@ -56,5 +63,67 @@ public class RedisUtil {
     public Boolean expire(String key, long timeout, TimeUnit unit) {
         return redisTemplate.expire(key, timeout, unit);
     }
+    
+    /**
+     * 有序集合添加成员（已存在时更新分数）
+     */
+    public Boolean zAdd(String key, String member, double score) {
+        return stringRedisTemplate.opsForZSet().add(key, member, score);
+    }
+    
+    /**
+     * 有序集合按分数范围查询成员（分数升序，最多count个）
+     */
+    public Set<String> zRangeByScore(String key, double min, double max, long count) {
+        return stringRedisTemplate.opsForZSet().rangeByScore(key, min, max, 0, count);
+    }
+    
+    /**
+     * 有序集合删除成员
+     */
+    public Long zRemove(String key, String member) {
+        return stringRedisTemplate.opsForZSet().remove(key, member);
+    }
+    
+    /**
+     * 获取字符串值（不经过JSON序列化，适用于计数器等）
+     */
+    public String getString(String key) {
+        return stringRedisTemplate.opsForValue().get(key);
+    }
+    
+    /**
+     * 设置字符串值（带过期时间，不经过JSON序列化）
+     */
+    public void setString(String key, String value, long timeout, TimeUnit unit) {
+        stringRedisTemplate.opsForValue().set(key, value, timeout, unit);
+    }
+    
+    /**
+     * 自增计数器（不经过JSON序列化）
+     */
+    public Long increment(String key) {
+        return stringRedisTemplate.opsForValue().increment(key);
+    }
+    
+    /**
+     * 不存在时设置字符串值（带过期时间）
+     */
+    public Boolean setStringIfAbsent(String key, String value, long timeout, TimeUnit unit) {
+        return stringRedisTemplate.opsForValue().setIfAbsent(key, value, timeout, unit);
+    }
+    
+    /**
+     * 执行Lua脚本（键和参数均按字符串传递）
+     */
+    public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+        return stringRedisTemplate.execute(script, keys, args);
+    }
+    
+    /**
+     * 发布消息
+     */
+    public void publish(String channel, String message) {
+        stringRedisTemplate.convertAndSend(channel, message);
+    }
 }
-
@@ -0,0 +1,31 @@
+package com.example.fetchbeebackend.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 游标分页结果VO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageVO<T> {
+
+    /**
+     * 当前页数据
+     */
+    private List<T> list;
+
+    /**
+     * 下一页游标（没有更多数据时为null）
+     */
+    private String nextCursor;
+
+    /**
+     * 是否还有更多数据
+     */
+    private Boolean hasMore;
+}
@@ -0,0 +1,31 @@
+package com.example.fetchbeebackend.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 通知长轮询结果VO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationPollVO {
+
+    /**
+     * 新通知列表（按ID升序）
+     */
+    private List<NotificationVO> notifications;
+
+    /**
+     * 已返回的最新通知ID，下次轮询时作为 lastSeenId 传入
+     */
+    private Long lastSeenId;
+
+    /**
+     * 未读通知数量
+     */
+    private Long unreadCount;
+}
@@ -0,0 +1,47 @@
+package com.example.fetchbeebackend.vo;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 定时任务租约VO
+ */
+@Data
+public class TaskLeaseVO {
+
+    /**
+     * 任务名称
+     */
+    private String taskName;
+
+    /**
+     * 持有节点（主机名:进程号）
+     */
+    private String owner;
+
+    /**
+     * 防护令牌
+     */
+    private Long fencingToken;
+
+    /**
+     * 租约到期时间
+     */
+    private LocalDateTime expireTime;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updateTime;
+
+    /**
+     * 租约是否有效（未到期）
+     */
+    private Boolean active;
+
+    /**
+     * 是否由当前节点持有
+     */
+    private Boolean currentNode;
+}
@@ -0,0 +1,63 @@
+package com.example.fetchbeebackend;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.MySQLContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.stream.Collectors;
+
+/**
+ * MySQL + Redis 容器测试基类（需要 Docker）
+ * 容器在首个子类加载时启动一次，所有子类共用（同时共用同一个 Spring 上下文），由 Testcontainers 在 JVM 退出时清理。
+ * 数据库使用 db/fetchbee.sql 的建表语句初始化（跳过示例数据），子类自行插入测试数据并使用不重复的用户名、订单号。
+ * 子类需要标注 @SpringBootTest 和 @Testcontainers(disabledWithoutDocker = true)，没有 Docker 时跳过。
+ */
+public abstract class ContainerTestSupport {
+
+    protected static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0")
+            .withDatabaseName("fetchbee")
+            .withUrlParam("characterEncoding", "utf8")
+            .withUrlParam("serverTimezone", "Asia/Shanghai");
+
+    protected static final GenericContainer<?> REDIS = new GenericContainer<>("redis:7-alpine")
+            .withCommand("redis-server", "--requirepass", "123456")
+            .withExposedPorts(6379);
+
+    static {
+        MYSQL.start();
+        REDIS.start();
+        createSchema();
+    }
+
+    @DynamicPropertySource
+    static void containerProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", MYSQL::getJdbcUrl);
+        registry.add("spring.datasource.username", MYSQL::getUsername);
+        registry.add("spring.datasource.password", MYSQL::getPassword);
+        registry.add("spring.data.redis.host", REDIS::getHost);
+        registry.add("spring.data.redis.port", () -> REDIS.getMappedPort(6379));
+        registry.add("mybatis.configuration.log-impl", () -> "org.apache.ibatis.logging.nologging.NoLoggingImpl");
+    }
+
+    private static void createSchema() {
+        try {
+            String schema = Files.readAllLines(Path.of("db", "fetchbee.sql"), StandardCharsets.UTF_8).stream()
+                    .filter(line -> !line.startsWith("INSERT INTO"))
+                    .collect(Collectors.joining("\n"));
+            try (Connection connection = DriverManager.getConnection(
+                    MYSQL.getJdbcUrl(), MYSQL.getUsername(), MYSQL.getPassword())) {
+                ScriptUtils.executeSqlScript(connection, new ByteArrayResource(schema.getBytes(StandardCharsets.UTF_8)));
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("初始化测试数据库失败", e);
+        }
+    }
+}
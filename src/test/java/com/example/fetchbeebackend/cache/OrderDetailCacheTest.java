@@ -0,0 +1,76 @@
+package com.example.fetchbeebackend.cache;
+
+import com.example.fetchbeebackend.utils.RedisUtil;
+import com.example.fetchbeebackend.vo.OrderVO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 订单详情缓存测试
+ */
+class OrderDetailCacheTest {
+
+    private final RedisUtil redisUtil = mock(RedisUtil.class);
+
+    private OrderDetailCache orderDetailCache;
+
+    @BeforeEach
+    void setUp() {
+        orderDetailCache = new OrderDetailCache();
+        ReflectionTestUtils.setField(orderDetailCache, "ttlSeconds", 300L);
+        ReflectionTestUtils.setField(orderDetailCache, "tombstoneSeconds", 5L);
+        ReflectionTestUtils.setField(orderDetailCache, "redisUtil", redisUtil);
+        ReflectionTestUtils.setField(orderDetailCache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(orderDetailCache, "objectMapper", new ObjectMapper());
+        orderDetailCache.init();
+    }
+
+    @Test
+    void missBackfillsRedis() {
+        assertEquals("FB1", orderDetailCache.get(1L, this::order).getOrderNo());
+        verify(redisUtil).setStringIfAbsent(eq("order:detail:1"), anyString(), eq(300L), eq(TimeUnit.SECONDS));
+    }
+
+    @Test
+    void hitSkipsLoader() {
+        when(redisUtil.getString("order:detail:1")).thenReturn("{\"id\":1,\"orderNo\":\"FB1\"}");
+
+        assertEquals("FB1", orderDetailCache.get(1L, id -> {
+            throw new AssertionError("命中缓存时不应查询数据库");
+        }).getOrderNo());
+    }
+
+    @Test
+    void invalidateLeavesTombstoneThatBlocksBackfill() {
+        orderDetailCache.invalidate(1L);
+        verify(redisUtil).setString("order:detail:1", "-", 5L, TimeUnit.SECONDS);
+
+        // 变更后读取：标记存在时直接查库，不把结果写回 Redis
+        when(redisUtil.getString("order:detail:1")).thenReturn("-");
+
+        assertEquals("FB1", orderDetailCache.get(1L, this::order).getOrderNo());
+        verify(redisUtil, never()).setStringIfAbsent(anyString(), anyString(), anyLong(), any());
+    }
+
+    private OrderVO order(Long id) {
+        OrderVO vo = new OrderVO();
+        vo.setId(id);
+        vo.setOrderNo("FB" + id);
+        return vo;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.fetchbeebackend.cache;
+
+import com.example.fetchbeebackend.entity.Order;
+import com.example.fetchbeebackend.mapper.OrderMapper;
+import com.example.fetchbeebackend.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 待接单订单簿测试
+ */
+class PendingOrderBookTest {
+
+    private final OrderMapper orderMapper = mock(OrderMapper.class);
+
+    private final UserService userService = mock(UserService.class);
+
+    private PendingOrderBook pendingOrderBook;
+
+    @BeforeEach
+    void setUp() {
+        pendingOrderBook = new PendingOrderBook();
+        ReflectionTestUtils.setField(pendingOrderBook, "orderMapper", orderMapper);
+        ReflectionTestUtils.setField(pendingOrderBook, "userService", userService);
+        when(userService.getUsernameMap(anyCollection())).thenReturn(Map.of(100L, "publisher"));
+    }
+
+    @Test
+    void changesDuringReloadAreReplayedOntoNewBook() {
+        Order accepted = order(1L, 10);
+        Order stillPending = order(2L, 20);
+        Order created = order(3L, 30);
+
+        // 加载查询已读到订单1、2，此时订单1被接单、订单3被发布（事务提交后的增量变更）
+        when(orderMapper.findPendingOrdersByCursor(any(), any(), anyInt())).thenAnswer(invocation -> {
+            pendingOrderBook.remove(accepted.getId());
+            pendingOrderBook.add(created, "publisher");
+            return List.of(accepted, stillPending);
+        });
+
+        pendingOrderBook.load();
+
+        assertEquals(List.of(2L, 3L), ids(pendingOrderBook.list()));
+    }
+
+    @Test
+    void changesAfterReloadApplyToCurrentBook() {
+        Order first = order(1L, 10);
+        when(orderMapper.findPendingOrdersByCursor(any(), any(), anyInt())).thenReturn(List.of(first));
+        pendingOrderBook.load();
+
+        pendingOrderBook.add(order(2L, 20), "publisher");
+        pendingOrderBook.remove(first.getId());
+
+        assertEquals(List.of(2L), ids(pendingOrderBook.list()));
+    }
+
+    private Order order(Long id, int minutesAgo) {
+        Order order = new Order();
+        order.setId(id);
+        order.setPublisherId(100L);
+        order.setCreateTime(LocalDateTime.now().minusMinutes(minutesAgo).withNano(0));
+        order.setDeadline(LocalDateTime.now().plusHours(1));
+        return order;
+    }
+
+    private List<Long> ids(List<PendingOrderBook.PendingOrder> pendingOrders) {
+        return pendingOrders.stream().map(pendingOrder -> pendingOrder.order().getId()).toList();
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.fetchbeebackend.cache;
+
+import com.example.fetchbeebackend.entity.User;
+import com.example.fetchbeebackend.mapper.UserMapper;
+import com.example.fetchbeebackend.utils.RedisUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 用户资料缓存测试
+ */
+class UserCacheTest {
+
+    private final UserMapper userMapper = mock(UserMapper.class);
+
+    private final RedisUtil redisUtil = mock(RedisUtil.class);
+
+    private UserCache userCache;
+
+    @BeforeEach
+    void setUp() {
+        userCache = new UserCache();
+        ReflectionTestUtils.setField(userCache, "localTtlSeconds", 30L);
+        ReflectionTestUtils.setField(userCache, "localMaxSize", 100L);
+        ReflectionTestUtils.setField(userCache, "redisTtlSeconds", 600L);
+        ReflectionTestUtils.setField(userCache, "tombstoneSeconds", 5L);
+        ReflectionTestUtils.setField(userCache, "usernameMaxSize", 100L);
+        ReflectionTestUtils.setField(userCache, "userMapper", userMapper);
+        ReflectionTestUtils.setField(userCache, "redisUtil", redisUtil);
+        ReflectionTestUtils.setField(userCache, "redisMessageListenerContainer", mock(RedisMessageListenerContainer.class));
+        ReflectionTestUtils.setField(userCache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(userCache, "objectMapper", new ObjectMapper());
+        userCache.init();
+    }
+
+    @Test
+    void missBackfillsRedis() {
+        when(userMapper.findProfileById(1L)).thenReturn(user(1L, "alice"));
+
+        assertEquals("alice", userCache.getProfile(1L).getUsername());
+        verify(redisUtil).setStringIfAbsent(eq("user:profile:1"), anyString(), eq(600L), eq(TimeUnit.SECONDS));
+    }
+
+    @Test
+    void invalidateLeavesTombstoneThatBlocksBackfill() {
+        userCache.invalidate(1L);
+        verify(redisUtil).setString("user:profile:1", "-", 5L, TimeUnit.SECONDS);
+
+        // 变更后读取：标记存在时直接查库，不把结果写回 Redis
+        when(redisUtil.getString("user:profile:1")).thenReturn("-");
+        when(userMapper.findProfileById(1L)).thenReturn(user(1L, "alice"));
+
+        assertEquals("alice", userCache.getProfile(1L).getUsername());
+        verify(redisUtil, never()).setStringIfAbsent(anyString(), anyString(), anyLong(), any());
+    }
+
+    @Test
+    void usernamesAreLoadedOnceAndServedLocally() {
+        when(userMapper.findUsernamesByIds(any())).thenReturn(List.of(user(1L, "alice"), user(2L, "bob")));
+
+        assertEquals(Map.of(1L, "alice", 2L, "bob"), userCache.getUsernames(Set.of(1L, 2L)));
+        assertEquals(Map.of(1L, "alice"), userCache.getUsernames(Set.of(1L)));
+
+        verify(userMapper, times(1)).findUsernamesByIds(any());
+    }
+
+    private User user(Long id, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        return user;
+    }
+}
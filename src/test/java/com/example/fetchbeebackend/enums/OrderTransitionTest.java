@@ -0,0 +1,74 @@
+package com.example.fetchbeebackend.enums;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 订单状态流转表测试
+ */
+class OrderTransitionTest {
+
+    @Test
+    void canFireOnlyFromDeclaredSources() {
+        for (OrderTransition transition : OrderTransition.values()) {
+            for (OrderStatus status : OrderStatus.values()) {
+                assertEquals(transition.getSources().contains(status), transition.canFire(status.getCode()),
+                        transition + " from " + status);
+            }
+            assertFalse(transition.canFire(null), transition + " from null");
+            assertFalse(transition.canFire(0), transition + " from unknown status");
+        }
+    }
+
+    @Test
+    void transitionTable() {
+        assertTransition(OrderTransition.ACCEPT, OrderStatus.ACCEPTED, OrderStatus.PENDING);
+        assertTransition(OrderTransition.DELIVER, OrderStatus.DELIVERED, OrderStatus.ACCEPTED);
+        assertTransition(OrderTransition.CONFIRM, OrderStatus.COMPLETED, OrderStatus.DELIVERED);
+        assertTransition(OrderTransition.AUTO_CONFIRM, OrderStatus.COMPLETED, OrderStatus.DELIVERED);
+        assertTransition(OrderTransition.COMPLETE, OrderStatus.COMPLETED, OrderStatus.ACCEPTED);
+        assertTransition(OrderTransition.CANCEL, OrderStatus.CANCELLED, OrderStatus.PENDING);
+        assertTransition(OrderTransition.EXPIRE, OrderStatus.CANCELLED, OrderStatus.PENDING);
+        assertTransition(OrderTransition.RIGHTS_CANCEL, OrderStatus.CANCELLED,
+                OrderStatus.ACCEPTED, OrderStatus.DELIVERED);
+    }
+
+    @Test
+    void terminalStatesCannotTransition() {
+        for (OrderTransition transition : OrderTransition.values()) {
+            assertFalse(transition.canFire(OrderStatus.COMPLETED.getCode()), transition + " from COMPLETED");
+            assertFalse(transition.canFire(OrderStatus.CANCELLED.getCode()), transition + " from CANCELLED");
+        }
+    }
+
+    @Test
+    void targetIsNeverASourceSoEachTransitionFiresOnce() {
+        for (OrderTransition transition : OrderTransition.values()) {
+            assertFalse(transition.canFire(transition.getTarget().getCode()), transition.name());
+        }
+    }
+
+    @Test
+    void sourceCodesMatchSources() {
+        for (OrderTransition transition : OrderTransition.values()) {
+            assertEquals(transition.getSources().size(), transition.getSourceCodes().size(), transition.name());
+            for (OrderStatus source : transition.getSources()) {
+                assertTrue(transition.getSourceCodes().contains(source.getCode()), transition + " " + source);
+            }
+        }
+    }
+
+    private void assertTransition(OrderTransition transition, OrderStatus target, OrderStatus... sources) {
+        Set<OrderStatus> expected = EnumSet.noneOf(OrderStatus.class);
+        expected.addAll(List.of(sources));
+        assertEquals(target, transition.getTarget(), transition.name());
+        assertEquals(expected, transition.getSources(), transition.name());
+    }
+}
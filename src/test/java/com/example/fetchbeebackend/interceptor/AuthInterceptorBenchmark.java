@@ -0,0 +1,120 @@
+package com.example.fetchbeebackend.interceptor;
+
+import com.example.fetchbeebackend.cache.SessionCache;
+import com.example.fetchbeebackend.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 认证拦截器基准（JMH）
+ * 对比原实现（validateToken 解析两次、getUserIdFromToken 再解析一次，每次都重新构建密钥和解析器）
+ * 与当前 AuthInterceptor.preHandle（复用解析器，解析一次得到 JwtPrincipal）。
+ * 会话检查不在测量范围内：两者都替换为始终有效，只比较 Token 处理的 CPU 开销；gc 分析器输出每次请求的分配字节数。
+ * 运行：mvn test-compile 后以测试类路径执行本类的 main 方法。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthInterceptorBenchmark {
+
+    private static final String SECRET = "fetchbee-secret-key-2024-please-change-this-in-production";
+
+    private AuthInterceptor interceptor;
+
+    private MockHttpServletRequest request;
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Setup
+    public void setUp() {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", TimeUnit.DAYS.toMillis(7));
+        jwtUtil.init();
+
+        interceptor = new AuthInterceptor();
+        ReflectionTestUtils.setField(interceptor, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(interceptor, "sessionCache", new SessionCache() {
+            @Override
+            public boolean isActive(String sessionId) {
+                return true;
+            }
+        });
+
+        request = new MockHttpServletRequest("GET", "/api/order/list");
+        request.addHeader("Authorization", "Bearer " + jwtUtil.generateToken(1L, "alice", "session-1"));
+    }
+
+    @Benchmark
+    public Object legacyPreHandle() {
+        String token = request.getHeader("Authorization").substring(7);
+        if (!legacyValidateToken(token)) {
+            throw new IllegalStateException("Token无效或已过期");
+        }
+        Long userId = legacyClaims(token).get("userId", Long.class);
+        request.setAttribute("userId", userId);
+        return userId;
+    }
+
+    @Benchmark
+    public boolean preHandle() {
+        return interceptor.preHandle(request, response, null);
+    }
+
+    /**
+     * 原 JwtUtil.validateToken：解析一次，isTokenExpired 再解析一次
+     */
+    private static boolean legacyValidateToken(String token) {
+        try {
+            legacyClaims(token);
+            Date expiration = legacyClaims(token).getExpiration();
+            return !expiration.before(new Date());
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * 原 JwtUtil.getClaimsFromToken：每次从密钥字符串构建密钥和解析器
+     */
+    private static Claims legacyClaims(String token) {
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        return Jwts.parser()
+                .verifyWith(key)
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AuthInterceptorBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.fetchbeebackend.service;
+
+import com.example.fetchbeebackend.exception.BusinessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 头像存储服务测试
+ */
+class AvatarServiceTest {
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13};
+
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 16};
+
+    @TempDir
+    Path storageDir;
+
+    private AvatarService avatarService;
+
+    @BeforeEach
+    void setUp() {
+        avatarService = new AvatarService();
+        ReflectionTestUtils.setField(avatarService, "storageDir", storageDir.toString());
+        ReflectionTestUtils.setField(avatarService, "maxBytes", 2 * 1024 * 1024);
+    }
+
+    @Test
+    void storesImageWhoseBytesMatchDeclaredType() {
+        String url = avatarService.storeDataUrl(dataUrl("image/png", PNG));
+
+        assertTrue(url.startsWith("/avatar/") && url.endsWith(".png"));
+        String hash = url.substring("/avatar/".length(), url.length() - ".png".length());
+        Path path = avatarService.find(hash, "png");
+        assertNotNull(path);
+        assertTrue(Files.exists(path));
+    }
+
+    @Test
+    void sameContentIsStoredOnce() {
+        assertEquals(avatarService.storeDataUrl(dataUrl("image/jpeg", JPEG)),
+                avatarService.storeDataUrl(dataUrl("image/jpeg", JPEG)));
+    }
+
+    @Test
+    void rejectsMarkupDeclaredAsImage() {
+        byte[] html = "<html><script>alert(1)</script></html>".getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(BusinessException.class, () -> avatarService.storeDataUrl(dataUrl("image/png", html)));
+        assertThrows(BusinessException.class, () -> avatarService.storeDataUrl(dataUrl("image/gif", html)));
+    }
+
+    @Test
+    void rejectsImageDeclaredAsAnotherType() {
+        assertThrows(BusinessException.class, () -> avatarService.storeDataUrl(dataUrl("image/png", JPEG)));
+    }
+
+    @Test
+    void recognisesEachSupportedSignature() {
+        byte[] gif = "GIF89a\u0001\u0000".getBytes(StandardCharsets.ISO_8859_1);
+        byte[] webp = "RIFF$\u0000\u0000\u0000WEBPVP8 ".getBytes(StandardCharsets.ISO_8859_1);
+
+        assertTrue(AvatarService.matchesSignature(PNG, "png"));
+        assertTrue(AvatarService.matchesSignature(JPEG, "jpg"));
+        assertTrue(AvatarService.matchesSignature(gif, "gif"));
+        assertTrue(AvatarService.matchesSignature(webp, "webp"));
+        assertFalse(AvatarService.matchesSignature("RIFF$\u0000\u0000\u0000WAVE".getBytes(StandardCharsets.ISO_8859_1), "webp"));
+        assertFalse(AvatarService.matchesSignature(new byte[]{(byte) 0x89, 'P'}, "png"));
+    }
+
+    private String dataUrl(String mimeType, byte[] content) {
+        return "data:" + mimeType + ";base64," + Base64.getEncoder().encodeToString(content);
+    }
+}
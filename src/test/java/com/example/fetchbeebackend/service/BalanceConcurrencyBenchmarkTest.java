@@ -0,0 +1,172 @@
+package com.example.fetchbeebackend.service;
+
+import com.example.fetchbeebackend.ContainerTestSupport;
+import com.example.fetchbeebackend.exception.BusinessException;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 余额并发基准（需要 Docker，使用 -Dbenchmark=true 运行）
+ * 大量并发的入账和扣款集中到同一账户，校验最终余额等于变动之和、余额记录前后余额首尾相接、
+ * 扣款的 balance + delta >= 0 条件从不让余额为负，并输出吞吐量。
+ */
+@Slf4j
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BalanceConcurrencyBenchmarkTest extends ContainerTestSupport {
+
+    private static final int THREADS = 128;
+
+    private static final int TRANSFERS = 1000;
+
+    private static final AtomicInteger SEQ = new AtomicInteger();
+
+    @Autowired
+    private BalanceService balanceService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void parallelTransfersIntoOneAccount() throws Exception {
+        long userId = user(BigDecimal.ZERO);
+
+        // 金额 0.01 ~ 10.00 各不相同，丢失任何一次更新都会让总额对不上
+        List<BigDecimal> amounts = new ArrayList<>();
+        for (int i = 0; i < TRANSFERS; i++) {
+            amounts.add(BigDecimal.valueOf(i % 1000 + 1, 2));
+        }
+        BigDecimal expected = amounts.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        AtomicInteger failed = new AtomicInteger();
+        long nanos = parallel(amounts.size(), i -> {
+            try {
+                balanceService.transfer(userId, amounts.get(i), null, "并发入账" + i);
+            } catch (RuntimeException e) {
+                failed.incrementAndGet();
+            }
+        });
+        log.info("并发入账：{} 笔，{} 线程，{} ops/s", TRANSFERS, THREADS, throughput(TRANSFERS, nanos));
+
+        assertEquals(0, failed.get());
+        assertEquals(0, expected.compareTo(balance(userId)));
+        assertRecordsChain(userId, BigDecimal.ZERO, TRANSFERS);
+    }
+
+    @Test
+    void parallelDeductionsNeverOverdraw() throws Exception {
+        BigDecimal initial = new BigDecimal("100.00");
+        BigDecimal amount = new BigDecimal("1.00");
+        int attempts = 300;
+        long userId = user(initial);
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        long nanos = parallel(attempts, i -> {
+            try {
+                balanceService.deduct(userId, amount, null, "并发扣款" + i);
+                succeeded.incrementAndGet();
+            } catch (BusinessException e) {
+                rejected.incrementAndGet();
+            }
+        });
+        log.info("并发扣款：{} 笔（成功 {}，余额不足 {}），{} 线程，{} ops/s",
+                attempts, succeeded.get(), rejected.get(), THREADS, throughput(attempts, nanos));
+
+        // 余额恰好扣完，多出的请求全部被拒绝
+        assertEquals(100, succeeded.get());
+        assertEquals(attempts - 100, rejected.get());
+        assertEquals(0, BigDecimal.ZERO.compareTo(balance(userId)));
+        assertRecordsChain(userId, initial, 100);
+    }
+
+    /**
+     * 按记录ID顺序（即加锁更新的顺序）校验：首条变动前余额为初始余额，每条的变动前余额等于上一条的变动后余额，
+     * 变动后余额 = 变动前余额 + 金额且不为负，末条变动后余额等于当前余额
+     */
+    private void assertRecordsChain(long userId, BigDecimal initial, int expectedCount) {
+        List<Map<String, Object>> records = jdbcTemplate.queryForList(
+                "SELECT amount, balance_before, balance_after FROM balance_record WHERE user_id = ? ORDER BY id",
+                userId);
+        assertEquals(expectedCount, records.size());
+
+        BigDecimal previous = initial;
+        for (Map<String, Object> record : records) {
+            BigDecimal amount = (BigDecimal) record.get("amount");
+            BigDecimal before = (BigDecimal) record.get("balance_before");
+            BigDecimal after = (BigDecimal) record.get("balance_after");
+            assertEquals(0, previous.compareTo(before), "余额记录不连续：" + record);
+            assertEquals(0, before.add(amount).compareTo(after), "余额记录前后不一致：" + record);
+            assertTrue(after.signum() >= 0, "余额为负：" + record);
+            previous = after;
+        }
+        assertEquals(0, previous.compareTo(balance(userId)));
+    }
+
+    /**
+     * 用 THREADS 个线程同时开始执行 count 次操作
+     * @return 总耗时（纳秒）
+     */
+    private long parallel(int count, IndexedAction action) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    action.run(index);
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+            return System.nanoTime() - begin;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long throughput(int operations, long nanos) {
+        return Math.round(operations * 1_000_000_000.0 / nanos);
+    }
+
+    private long user(BigDecimal balance) {
+        String username = "balance_user_" + SEQ.incrementAndGet();
+        jdbcTemplate.update("INSERT INTO user (username, password, balance) VALUES (?, 'x', ?)", username, balance);
+        return jdbcTemplate.queryForObject("SELECT id FROM user WHERE username = ?", Long.class, username);
+    }
+
+    private BigDecimal balance(long userId) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM user WHERE id = ?", BigDecimal.class, userId);
+    }
+
+    @FunctionalInterface
+    private interface IndexedAction {
+        void run(int index);
+    }
+}
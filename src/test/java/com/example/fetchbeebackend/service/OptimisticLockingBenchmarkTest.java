@@ -0,0 +1,151 @@
+package com.example.fetchbeebackend.service;
+
+import com.example.fetchbeebackend.ContainerTestSupport;
+import com.example.fetchbeebackend.dto.UpdateUserRequest;
+import com.example.fetchbeebackend.exception.ConcurrentUpdateException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 乐观锁与悲观锁争用基准（需要 Docker，使用 -Dbenchmark=true 运行）
+ * 多个线程同时修改同一用户的资料：乐观锁走 UserService.updateUserInfo（版本号条件更新 + OptimisticRetry），
+ * 悲观锁基准在事务中 SELECT ... FOR UPDATE 后更新。输出两者的吞吐量和冲突重试率。
+ */
+@Slf4j
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class OptimisticLockingBenchmarkTest extends ContainerTestSupport {
+
+    private static final int THREADS = 16;
+
+    private static final int OPERATIONS_PER_THREAD = 50;
+
+    private static final AtomicInteger SEQ = new AtomicInteger();
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void optimisticVersusLocking() throws Exception {
+        // 1. 乐观锁：版本号条件更新，冲突时重试
+        long optimisticUser = user();
+        double retriedBefore = conflicts("retried");
+        double exhaustedBefore = conflicts("exhausted");
+        AtomicInteger failed = new AtomicInteger();
+        long optimisticNanos = contend(thread -> {
+            UpdateUserRequest request = new UpdateUserRequest();
+            request.setAddress("thread-" + thread);
+            try {
+                userService.updateUserInfo(optimisticUser, request);
+            } catch (ConcurrentUpdateException e) {
+                failed.incrementAndGet();
+            }
+        });
+        double retried = conflicts("retried") - retriedBefore;
+        double exhausted = conflicts("exhausted") - exhaustedBefore;
+
+        // 2. 悲观锁基准：锁定行后更新
+        long lockingUser = user();
+        long lockingNanos = contend(thread -> transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForObject("SELECT version FROM user WHERE id = ? FOR UPDATE", Integer.class, lockingUser);
+            jdbcTemplate.update("UPDATE user SET address = ?, version = version + 1 WHERE id = ?",
+                    "thread-" + thread, lockingUser);
+        }));
+
+        int total = THREADS * OPERATIONS_PER_THREAD;
+        log.info("乐观锁：{} 次更新，{} ops/s，重试 {} 次（{}%），放弃 {} 次",
+                total, throughput(total, optimisticNanos), (long) retried,
+                String.format("%.1f", retried * 100 / total), (long) exhausted);
+        log.info("悲观锁：{} 次更新，{} ops/s", total, throughput(total, lockingNanos));
+
+        // 每次更新要么成功提交（版本号加一），要么重试用尽后放弃
+        assertEquals(failed.get(), (int) exhausted);
+        assertEquals(total - failed.get(), version(optimisticUser));
+        assertEquals(total, version(lockingUser));
+    }
+
+    /**
+     * 所有线程同时开始，各执行 OPERATIONS_PER_THREAD 次操作
+     * @return 总耗时（纳秒）
+     */
+    private long contend(ThreadAction action) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                int thread = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int n = 0; n < OPERATIONS_PER_THREAD; n++) {
+                        action.run(thread);
+                    }
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+            return System.nanoTime() - begin;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private double conflicts(String result) {
+        Counter counter = meterRegistry.find("concurrency.conflict")
+                .tags("name", "user.profile", "result", result)
+                .counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private long throughput(int operations, long nanos) {
+        return Math.round(operations * 1_000_000_000.0 / nanos);
+    }
+
+    private long user() {
+        String username = "bench_user_" + SEQ.incrementAndGet();
+        jdbcTemplate.update("INSERT INTO user (username, password, balance) VALUES (?, 'x', 0)", username);
+        return jdbcTemplate.queryForObject("SELECT id FROM user WHERE username = ?", Long.class, username);
+    }
+
+    private int version(long userId) {
+        return jdbcTemplate.queryForObject("SELECT version FROM user WHERE id = ?", Integer.class, userId);
+    }
+
+    @FunctionalInterface
+    private interface ThreadAction {
+        void run(int thread);
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.fetchbeebackend.service;
+
+import com.example.fetchbeebackend.ContainerTestSupport;
+import com.example.fetchbeebackend.enums.OrderStatus;
+import com.example.fetchbeebackend.exception.BusinessException;
+import com.example.fetchbeebackend.utils.RedisUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 抢单负载测试（需要 Docker）
+ * 500 个接单者同时抢同一个订单：只有一人接单成功，只有抢占成功的请求进入数据库接单；
+ * 同样的负载在关闭 Redis 抢占时全部进入数据库，对比两者在 MySQL 上执行的语句数（Questions 的差值，含后台任务的少量语句）。
+ */
+@Slf4j
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class OrderGrabLoadTest extends ContainerTestSupport {
+
+    private static final int GRABBERS = 500;
+
+    private static final AtomicInteger SEQ = new AtomicInteger();
+
+    @Autowired
+    private OrderGrabService orderGrabService;
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void redisClaimKeepsLosersOutOfMysql() throws Exception {
+        List<Long> receivers = receivers(GRABBERS);
+
+        // 1. 开启抢占
+        long orderId = pendingOrder();
+        Map<String, Double> before = grabCounts();
+        long questionsBefore = questions();
+        List<Long> winners = grab(orderId, receivers);
+        long withClaim = questions() - questionsBefore;
+        Map<String, Double> after = grabCounts();
+
+        assertEquals(1, winners.size());
+        assertEquals(OrderStatus.ACCEPTED.getCode(), status(orderId));
+        assertEquals(winners.get(0), receiver(orderId));
+        // 只有一个请求进入数据库接单，其余在 Redis 中被拒绝
+        assertEquals(1, after.get("won") - before.get("won"));
+        assertEquals(GRABBERS - 1, after.get("rejected") - before.get("rejected"));
+        assertEquals(0, after.get("bypassed") - before.get("bypassed"));
+        assertEquals(0, after.get("released") - before.get("released"));
+
+        // 2. 关闭抢占作为对照：所有请求都开启事务并查询订单和接单者
+        long baselineOrderId = pendingOrder();
+        long withoutClaim;
+        ReflectionTestUtils.setField(orderGrabService, "enabled", false);
+        try {
+            long baselineBefore = questions();
+            assertEquals(1, grab(baselineOrderId, receivers).size());
+            withoutClaim = questions() - baselineBefore;
+        } finally {
+            ReflectionTestUtils.setField(orderGrabService, "enabled", true);
+        }
+
+        log.info("{} 人同时抢单：开启抢占执行 {} 条语句，关闭抢占执行 {} 条语句", GRABBERS, withClaim, withoutClaim);
+        assertTrue(withClaim * 10 < withoutClaim, "开启抢占后数据库语句数没有明显减少");
+    }
+
+    @Test
+    void failedWinnerReleasesClaim() {
+        long orderId = pendingOrder();
+        // 未认证的接单者抢占成功后在数据库接单时失败
+        long unverified = user(0);
+
+        assertThrows(BusinessException.class, () -> orderGrabService.acceptOrder(orderId, unverified));
+        assertNull(redisUtil.getString("order:grab:" + orderId));
+        assertEquals(OrderStatus.PENDING.getCode(), status(orderId));
+
+        // 抢占已释放，其他人可以继续接单
+        long verified = user(2);
+        orderGrabService.acceptOrder(orderId, verified);
+        assertEquals(OrderStatus.ACCEPTED.getCode(), status(orderId));
+        assertEquals(verified, (long) receiver(orderId));
+    }
+
+    /**
+     * 所有接单者同时抢单
+     * @return 接单成功的接单者
+     */
+    private List<Long> grab(long orderId, List<Long> receivers) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(receivers.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (Long receiverId : receivers) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        orderGrabService.acceptOrder(orderId, receiverId);
+                        return receiverId;
+                    } catch (BusinessException e) {
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+            List<Long> winners = new ArrayList<>();
+            for (Future<Long> future : futures) {
+                Long winner = future.get(2, TimeUnit.MINUTES);
+                if (winner != null) {
+                    winners.add(winner);
+                }
+            }
+            return winners;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Map<String, Double> grabCounts() {
+        Map<String, Double> counts = new HashMap<>();
+        for (String result : List.of("won", "rejected", "bypassed", "released")) {
+            Counter counter = meterRegistry.find("order.grab").tag("result", result).counter();
+            counts.put(result, counter == null ? 0 : counter.count());
+        }
+        return counts;
+    }
+
+    private long questions() {
+        return jdbcTemplate.queryForObject("SHOW GLOBAL STATUS LIKE 'Questions'", (rs, rowNum) -> rs.getLong(2));
+    }
+
+    private List<Long> receivers(int count) {
+        List<Long> receivers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            receivers.add(user(2));
+        }
+        return receivers;
+    }
+
+    private long user(int verificationStatus) {
+        String username = "grab_user_" + SEQ.incrementAndGet();
+        jdbcTemplate.update("INSERT INTO user (username, password, balance, verification_status) VALUES (?, 'x', 0, ?)",
+                username, verificationStatus);
+        return jdbcTemplate.queryForObject("SELECT id FROM user WHERE username = ?", Long.class, username);
+    }
+
+    private long pendingOrder() {
+        String orderNo = "GRAB" + SEQ.incrementAndGet();
+        jdbcTemplate.update("INSERT INTO `order` (order_no, publisher_id, pickup_code, pickup_address, "
+                        + "delivery_address, reward, deadline, status) VALUES (?, ?, '1-2-3', 'A', 'B', ?, ?, ?)",
+                orderNo, user(2), new BigDecimal("50.00"), LocalDateTime.now().plusDays(1),
+                OrderStatus.PENDING.getCode());
+        return jdbcTemplate.queryForObject("SELECT id FROM `order` WHERE order_no = ?", Long.class, orderNo);
+    }
+
+    private Integer status(long orderId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM `order` WHERE id = ?", Integer.class, orderId);
+    }
+
+    private Long receiver(long orderId) {
+        return jdbcTemplate.queryForObject("SELECT receiver_id FROM `order` WHERE id = ?", Long.class, orderId);
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.fetchbeebackend.service;
+
+import com.example.fetchbeebackend.exception.BusinessException;
+import com.example.fetchbeebackend.utils.RedisUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 抢单服务测试
+ * 抢占、释放和延长过期时间通过调用 Lua 脚本时的参数个数区分：抢占和延长带两个参数（接单者、毫秒数），释放只带接单者。
+ */
+class OrderGrabServiceTest {
+
+    private static final Long ORDER_ID = 1L;
+
+    private static final Long RECEIVER_ID = 7L;
+
+    private static final List<String> KEYS = List.of("order:grab:1");
+
+    private final OrderService orderService = mock(OrderService.class);
+
+    private final RedisUtil redisUtil = mock(RedisUtil.class);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private OrderGrabService orderGrabService;
+
+    @BeforeEach
+    void setUp() {
+        orderGrabService = new OrderGrabService();
+        ReflectionTestUtils.setField(orderGrabService, "enabled", true);
+        ReflectionTestUtils.setField(orderGrabService, "claimTtlMs", 5000L);
+        ReflectionTestUtils.setField(orderGrabService, "holdSeconds", 600L);
+        ReflectionTestUtils.setField(orderGrabService, "orderService", orderService);
+        ReflectionTestUtils.setField(orderGrabService, "redisUtil", redisUtil);
+        ReflectionTestUtils.setField(orderGrabService, "meterRegistry", meterRegistry);
+    }
+
+    @Test
+    void winnerAcceptsAndHoldsClaim() {
+        claimReturns(1L);
+
+        orderGrabService.acceptOrder(ORDER_ID, RECEIVER_ID);
+
+        verify(orderService).acceptOrder(ORDER_ID, RECEIVER_ID);
+        verify(redisUtil).execute(any(RedisScript.class), eq(KEYS), eq("7"), eq("600000"));
+        verify(redisUtil, never()).execute(any(RedisScript.class), eq(KEYS), eq("7"));
+        assertEquals(1, count("won"));
+    }
+
+    @Test
+    void loserIsRejectedWithoutTouchingDatabase() {
+        claimReturns(0L);
+
+        assertThrows(BusinessException.class, () -> orderGrabService.acceptOrder(ORDER_ID, RECEIVER_ID));
+
+        verify(orderService, never()).acceptOrder(anyLong(), anyLong());
+        assertEquals(1, count("rejected"));
+    }
+
+    @Test
+    void failedWinnerReleasesClaim() {
+        claimReturns(1L);
+        BusinessException failure = new BusinessException("订单状态不正确");
+        doThrow(failure).when(orderService).acceptOrder(ORDER_ID, RECEIVER_ID);
+
+        assertSame(failure, assertThrows(BusinessException.class,
+                () -> orderGrabService.acceptOrder(ORDER_ID, RECEIVER_ID)));
+
+        verify(redisUtil).execute(any(RedisScript.class), eq(KEYS), eq("7"));
+        assertEquals(1, count("released"));
+    }
+
+    @Test
+    void failedRetryOfSameReceiverKeepsClaim() {
+        // 同一接单者重复请求（抢占已存在），失败时不释放首个请求的抢占
+        claimReturns(2L);
+        doThrow(new BusinessException("订单状态不正确")).when(orderService).acceptOrder(ORDER_ID, RECEIVER_ID);
+
+        assertThrows(BusinessException.class, () -> orderGrabService.acceptOrder(ORDER_ID, RECEIVER_ID));
+
+        verify(redisUtil, never()).execute(any(RedisScript.class), eq(KEYS), eq("7"));
+    }
+
+    @Test
+    void redisOutageFallsBackToDatabase() {
+        when(redisUtil.execute(any(RedisScript.class), eq(KEYS), eq("7"), eq("5000")))
+                .thenThrow(new RedisConnectionFailureException("Redis 不可用"));
+
+        orderGrabService.acceptOrder(ORDER_ID, RECEIVER_ID);
+
+        verify(orderService).acceptOrder(ORDER_ID, RECEIVER_ID);
+        verify(redisUtil, never()).execute(any(RedisScript.class), eq(KEYS), eq("7"), eq("600000"));
+        assertEquals(1, count("bypassed"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void claimReturns(Long result) {
+        when(redisUtil.execute(any(RedisScript.class), eq(KEYS), eq("7"), eq("5000"))).thenReturn(result);
+    }
+
+    private double count(String result) {
+        return meterRegistry.counter("order.grab", "result", result).count();
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.fetchbeebackend.service;
+
+import com.example.fetchbeebackend.ContainerTestSupport;
+import com.example.fetchbeebackend.dto.ReviewRightsProtectionRequest;
+import com.example.fetchbeebackend.enums.BalanceType;
+import com.example.fetchbeebackend.enums.OrderStatus;
+import com.example.fetchbeebackend.enums.OrderTransition;
+import com.example.fetchbeebackend.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 订单状态机并发测试（需要 Docker）
+ * 对每组互相冲突的流转同时发起大量请求，断言只有一个成功、资金只变动一次。
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class OrderStateMachineConcurrencyTest extends ContainerTestSupport {
+
+    /**
+     * 每种操作的并发线程数
+     */
+    private static final int THREADS_PER_ACTION = 8;
+
+    private static final BigDecimal REWARD = new BigDecimal("10.00");
+
+    private static final AtomicInteger SEQ = new AtomicInteger();
+
+    @Autowired
+    private OrderStateMachine orderStateMachine;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private RightsProtectionService rightsProtectionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // ---------------------------------------------------------------- 状态机层：只有一个 true
+
+    @Test
+    void confirmVersusAutoConfirmHasOneWinner() throws Exception {
+        long orderId = deliveredOrder();
+
+        assertSingleTransitionWinner(orderId, OrderTransition.CONFIRM, OrderTransition.AUTO_CONFIRM);
+        assertEquals(OrderStatus.COMPLETED.getCode(), status(orderId));
+    }
+
+    @Test
+    void cancelVersusAcceptVersusExpireHasOneWinner() throws Exception {
+        long orderId = pendingOrder(LocalDateTime.now().plusDays(1));
+
+        OrderTransition winner = assertSingleTransitionWinner(orderId,
+                OrderTransition.CANCEL, OrderTransition.ACCEPT, OrderTransition.EXPIRE);
+        assertEquals(winner.getTarget().getCode(), status(orderId));
+    }
+
+    @Test
+    void rightsCancelVersusConfirmHasOneWinner() throws Exception {
+        long orderId = deliveredOrder();
+
+        OrderTransition winner = assertSingleTransitionWinner(orderId,
+                OrderTransition.RIGHTS_CANCEL, OrderTransition.CONFIRM);
+        assertEquals(winner.getTarget().getCode(), status(orderId));
+    }
+
+    // ---------------------------------------------------------------- 业务层：只有一次资金变动
+
+    @Test
+    void confirmAndAutoConfirmPayReceiverOnce() throws Exception {
+        long publisherId = user();
+        long receiverId = user();
+        long orderId = insertOrder(publisherId, receiverId, OrderStatus.DELIVERED,
+                LocalDateTime.now().plusDays(1), LocalDateTime.now().minusDays(2), 0, null);
+
+        List<Callable<Boolean>> actions = new ArrayList<>();
+        for (int i = 0; i < THREADS_PER_ACTION; i++) {
+            actions.add(() -> {
+                orderService.confirmOrder(orderId, publisherId);
+                return true;
+            });
+            actions.add(() -> orderService.autoConfirmOrder(orderId));
+        }
+
+        assertEquals(1, race(actions));
+        assertEquals(OrderStatus.COMPLETED.getCode(), status(orderId));
+        assertEquals(1, balanceRecords(orderId, BalanceType.ORDER_INCOME));
+        assertEquals(0, REWARD.compareTo(balance(receiverId)));
+    }
+
+    @Test
+    void cancelAndAcceptMoveFundsAtMostOnce() throws Exception {
+        long publisherId = user();
+        long receiverId = user();
+        long orderId = insertOrder(publisherId, null, OrderStatus.PENDING,
+                LocalDateTime.now().plusDays(1), null, 0, null);
+
+        List<Callable<Boolean>> actions = new ArrayList<>();
+        for (int i = 0; i < THREADS_PER_ACTION; i++) {
+            actions.add(() -> {
+                orderService.cancelOrder(orderId, publisherId, "test");
+                return true;
+            });
+            actions.add(() -> {
+                orderService.acceptOrder(orderId, receiverId);
+                return true;
+            });
+        }
+
+        assertEquals(1, race(actions));
+        int expectedRefunds = status(orderId).equals(OrderStatus.CANCELLED.getCode()) ? 1 : 0;
+        assertEquals(expectedRefunds, balanceRecords(orderId, BalanceType.ORDER_REFUND));
+        assertEquals(0, REWARD.multiply(BigDecimal.valueOf(expectedRefunds)).compareTo(balance(publisherId)));
+    }
+
+    @Test
+    void cancelAndExpireRefundOnce() throws Exception {
+        long publisherId = user();
+        long orderId = insertOrder(publisherId, null, OrderStatus.PENDING,
+                LocalDateTime.now().minusMinutes(1), null, 0, null);
+
+        List<Callable<Boolean>> actions = new ArrayList<>();
+        for (int i = 0; i < THREADS_PER_ACTION; i++) {
+            actions.add(() -> {
+                orderService.cancelOrder(orderId, publisherId, "test");
+                return true;
+            });
+            actions.add(() -> orderService.expireOrder(orderId));
+        }
+
+        assertEquals(1, race(actions));
+        assertEquals(OrderStatus.CANCELLED.getCode(), status(orderId));
+        assertEquals(1, balanceRecords(orderId, BalanceType.ORDER_REFUND));
+        assertEquals(0, REWARD.compareTo(balance(publisherId)));
+    }
+
+    @Test
+    void rightsApprovalAndConfirmMoveFundsOnce() throws Exception {
+        long publisherId = user();
+        long receiverId = user();
+        long orderId = insertOrder(publisherId, receiverId, OrderStatus.DELIVERED,
+                LocalDateTime.now().plusDays(1), LocalDateTime.now().minusHours(1), 1, "publisher");
+
+        ReviewRightsProtectionRequest approve = new ReviewRightsProtectionRequest();
+        approve.setRightsStatus(2);
+
+        List<Callable<Boolean>> actions = new ArrayList<>();
+        for (int i = 0; i < THREADS_PER_ACTION; i++) {
+            actions.add(() -> {
+                rightsProtectionService.reviewRightsProtection(orderId, approve);
+                return true;
+            });
+            actions.add(() -> {
+                orderService.confirmOrder(orderId, publisherId);
+                return true;
+            });
+        }
+
+        assertEquals(1, race(actions));
+        int income = balanceRecords(orderId, BalanceType.ORDER_INCOME);
+        int refund = balanceRecords(orderId, BalanceType.ORDER_REFUND);
+        assertEquals(1, income + refund);
+        if (refund == 1) {
+            assertEquals(OrderStatus.CANCELLED.getCode(), status(orderId));
+            assertEquals(0, REWARD.compareTo(balance(publisherId)));
+            assertEquals(0, BigDecimal.ZERO.compareTo(balance(receiverId)));
+        } else {
+            assertEquals(OrderStatus.COMPLETED.getCode(), status(orderId));
+            assertEquals(0, BigDecimal.ZERO.compareTo(balance(publisherId)));
+            assertEquals(0, REWARD.compareTo(balance(receiverId)));
+        }
+    }
+
+    // ---------------------------------------------------------------- 辅助方法
+
+    /**
+     * 每种流转各 THREADS_PER_ACTION 个线程同时执行，断言只有一次返回 true，返回获胜的流转
+     */
+    private OrderTransition assertSingleTransitionWinner(long orderId, OrderTransition... transitions) throws Exception {
+        List<OrderTransition> winners = new ArrayList<>();
+        List<Callable<Boolean>> actions = new ArrayList<>();
+        for (int i = 0; i < THREADS_PER_ACTION; i++) {
+            for (OrderTransition transition : transitions) {
+                actions.add(() -> {
+                    boolean success = orderStateMachine.transition(orderId, transition);
+                    if (success) {
+                        synchronized (winners) {
+                            winners.add(transition);
+                        }
+                    }
+                    return success;
+                });
+            }
+        }
+
+        assertEquals(1, race(actions));
+        assertEquals(1, winners.size());
+        return winners.get(0);
+    }
+
+    /**
+     * 所有操作在同一时刻开始，返回成功次数；业务异常视为竞争失败，其他异常使测试失败
+     */
+    private int race(List<Callable<Boolean>> actions) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(actions.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (Callable<Boolean> action : actions) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        return action.call();
+                    } catch (BusinessException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int successes = 0;
+            for (Future<Boolean> future : futures) {
+                if (future.get(60, TimeUnit.SECONDS)) {
+                    successes++;
+                }
+            }
+            return successes;
+        } finally {
+            executor.shutdownNow();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    private long deliveredOrder() {
+        return insertOrder(user(), user(), OrderStatus.DELIVERED,
+                LocalDateTime.now().plusDays(1), LocalDateTime.now().minusDays(2), 0, null);
+    }
+
+    private long pendingOrder(LocalDateTime deadline) {
+        return insertOrder(user(), null, OrderStatus.PENDING, deadline, null, 0, null);
+    }
+
+    /**
+     * 创建已认证、余额为0的用户
+     */
+    private long user() {
+        String username = "race_user_" + SEQ.incrementAndGet();
+        jdbcTemplate.update("INSERT INTO user (username, password, balance, verification_status) VALUES (?, 'x', 0, 2)",
+                username);
+        return jdbcTemplate.queryForObject("SELECT id FROM user WHERE username = ?", Long.class, username);
+    }
+
+    private long insertOrder(long publisherId, Long receiverId, OrderStatus status, LocalDateTime deadline,
+                             LocalDateTime deliverTime, int rightsStatus, String rightsApplicant) {
+        String orderNo = "RACE" + SEQ.incrementAndGet();
+        jdbcTemplate.update("INSERT INTO `order` (order_no, publisher_id, receiver_id, pickup_code, pickup_address, "
+                        + "delivery_address, reward, deadline, status, deliver_time, rights_status, rights_applicant) "
+                        + "VALUES (?, ?, ?, '1-2-3', 'A', 'B', ?, ?, ?, ?, ?, ?)",
+                orderNo, publisherId, receiverId, REWARD, deadline, status.getCode(), deliverTime,
+                rightsStatus, rightsApplicant);
+        return jdbcTemplate.queryForObject("SELECT id FROM `order` WHERE order_no = ?", Long.class, orderNo);
+    }
+
+    private Integer status(long orderId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM `order` WHERE id = ?", Integer.class, orderId);
+    }
+
+    private BigDecimal balance(long userId) {
+        return jdbcTemplate.queryForObject("SELECT balance FROM user WHERE id = ?", BigDecimal.class, userId);
+    }
+
+    private int balanceRecords(long orderId, BalanceType type) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM balance_record WHERE order_id = ? AND type = ?",
+                Integer.class, orderId, type.getCode());
+    }
+}
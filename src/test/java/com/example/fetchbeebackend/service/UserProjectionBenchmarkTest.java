@@ -0,0 +1,137 @@
+package com.example.fetchbeebackend.service;
+
+import com.example.fetchbeebackend.ContainerTestSupport;
+import com.example.fetchbeebackend.mapper.UserMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 用户查询投影基准（需要 Docker，使用 -Dbenchmark=true 运行）
+ * 用户带内联头像（data URL）和认证信息，对比原来的 SELECT * 与各个按用途投影的查询：
+ * 每次查询服务端发送的字节数（同一连接上 Bytes_sent 的差值）和平均耗时。
+ * 个人资料和登录查询仍包含头像字段，头像迁移到头像存储之前不会变小。
+ */
+@Slf4j
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class UserProjectionBenchmarkTest extends ContainerTestSupport {
+
+    private static final int USERS = 200;
+
+    /**
+     * 内联头像的原始图片大小（Base64 后约 64KB）
+     */
+    private static final int AVATAR_BYTES = 48 * 1024;
+
+    private static final AtomicInteger SEQ = new AtomicInteger();
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void projectionsReadLessThanSelectAll() {
+        Map<Long, String> users = seedUsers();
+        List<Long> ids = new ArrayList<>(users.keySet());
+
+        Map<String, LongConsumer> lookups = new LinkedHashMap<>();
+        lookups.put("SELECT *", id -> jdbcTemplate.queryForMap("SELECT * FROM user WHERE id = ?", id));
+        lookups.put("findLoginByUsername", id -> userMapper.findLoginByUsername(users.get(id)));
+        lookups.put("findProfileById", userMapper::findProfileById);
+        lookups.put("findGateById", userMapper::findGateById);
+        lookups.put("findVerificationById", userMapper::findVerificationById);
+        lookups.put("findCredentialById", userMapper::findCredentialById);
+        lookups.put("findBalanceById", userMapper::findBalanceById);
+        lookups.put("findRoleById", userMapper::findRoleById);
+        lookups.put("findUsernamesByIds", id -> userMapper.findUsernamesByIds(Set.of(id)));
+
+        // 预热：连接、语句缓存和 InnoDB 缓冲池
+        lookups.values().forEach(lookup -> ids.forEach(lookup::accept));
+
+        Map<String, long[]> results = new LinkedHashMap<>();
+        lookups.forEach((name, lookup) -> {
+            long[] result = measure(lookup, ids);
+            results.put(name, result);
+            log.info("{}：{} 字节/次，{} 微秒/次", name, result[0], result[1] / 1000);
+        });
+
+        long selectAllBytes = results.get("SELECT *")[0];
+        results.forEach((name, result) -> {
+            if (!name.equals("SELECT *") && !name.equals("findProfileById") && !name.equals("findLoginByUsername")) {
+                assertTrue(result[0] < selectAllBytes, name + " 读取的字节数不少于 SELECT *");
+            }
+        });
+    }
+
+    /**
+     * 在同一连接上依次查询所有用户
+     * @return {每次查询发送的字节数, 每次查询的平均耗时（纳秒）}
+     */
+    private long[] measure(LongConsumer lookup, List<Long> ids) {
+        return transactionTemplate.execute(status -> {
+            // 读取 Bytes_sent 本身也会发送数据，先测出这部分开销
+            long first = bytesSent();
+            long overhead = bytesSent() - first;
+
+            long before = bytesSent();
+            long begin = System.nanoTime();
+            for (Long id : ids) {
+                lookup.accept(id);
+            }
+            long nanos = System.nanoTime() - begin;
+            long bytes = bytesSent() - before - overhead;
+            return new long[]{bytes / ids.size(), nanos / ids.size()};
+        });
+    }
+
+    private long bytesSent() {
+        return jdbcTemplate.queryForObject("SHOW SESSION STATUS LIKE 'Bytes_sent'", (rs, rowNum) -> rs.getLong(2));
+    }
+
+    /**
+     * 插入带内联头像和认证信息的用户
+     * @return 用户ID -> 用户名
+     */
+    private Map<Long, String> seedUsers() {
+        Random random = new Random(42);
+        Map<Long, String> users = new LinkedHashMap<>();
+        for (int i = 0; i < USERS; i++) {
+            byte[] image = new byte[AVATAR_BYTES];
+            random.nextBytes(image);
+            String avatar = "data:image/png;base64," + Base64.getEncoder().encodeToString(image);
+            String username = "projection_user_" + SEQ.incrementAndGet();
+            jdbcTemplate.update("INSERT INTO user (username, password, phone, address, balance, avatar, "
+                            + "verification_status, verification_image, verification_remark) "
+                            + "VALUES (?, 'e10adc3949ba59abbe56e057f20f883e', '13800000000', '学生公寓1号楼', 100, ?, "
+                            + "2, '/uploads/verification/student-card.jpg', '审核通过')",
+                    username, avatar);
+            users.put(jdbcTemplate.queryForObject("SELECT id FROM user WHERE username = ?", Long.class, username),
+                    username);
+        }
+        return users;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.fetchbeebackend.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 分层时间轮测试
+ */
+class HierarchicalTimingWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    @Test
+    void taskFiresOnFirstAdvancePastDeadline() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, 3, START);
+        wheel.schedule("a", START + 25);
+
+        assertEquals(List.of(), wheel.advanceTo(START + 20));
+        assertEquals(List.of(), wheel.advanceTo(START + 29));
+        assertEquals(List.of("a"), wheel.advanceTo(START + 30));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void overdueTaskFiresOnNextAdvance() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, 3, START);
+        wheel.schedule("late", START - 5_000);
+
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("late"), wheel.advanceTo(START + 10));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void tasksBeyondTopLevelRangeWaitInOverflow() {
+        // 3层 × 8格 × 10ms 覆盖 5120ms，之外的任务进入溢出队列
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, 3, START);
+        long deadline = START + 20_000;
+        wheel.schedule("far", deadline);
+
+        assertEquals(List.of(), wheel.advanceTo(deadline - 10));
+        assertEquals(List.of("far"), wheel.advanceTo(deadline));
+    }
+
+    @Test
+    void randomTasksNeverFireEarlyAndAtMostOneTickLate() {
+        long tickMs = 10;
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(tickMs, 8, 3, START);
+        Random random = new Random(42);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        for (int i = 0; i < 2_000; i++) {
+            long deadline = START + random.nextInt(30_000);
+            deadlines.put(i, deadline);
+            wheel.schedule(i, deadline);
+        }
+
+        Map<Integer, Long> fired = new HashMap<>();
+        long end = START + 31_000;
+        for (long now = START; now <= end; now += 7) {
+            for (Integer task : wheel.advanceTo(now)) {
+                assertNull(fired.put(task, now), "任务重复到期：" + task);
+            }
+        }
+
+        assertEquals(deadlines.size(), fired.size());
+        assertEquals(0, wheel.size());
+        for (Map.Entry<Integer, Long> entry : fired.entrySet()) {
+            long deadline = deadlines.get(entry.getKey());
+            long firedAt = entry.getValue();
+            assertTrue(firedAt >= deadline, "提前到期：task=" + entry.getKey());
+            // 向上取整到tick，加上推进步长
+            assertTrue(firedAt < deadline + tickMs + 7, "到期过晚：task=" + entry.getKey());
+        }
+    }
+
+    @Test
+    void tasksScheduledWhileRunningAreHonoured() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 4, 2, START);
+        wheel.advanceTo(START + 55);
+        wheel.schedule("b", START + 200);
+
+        assertEquals(List.of(), wheel.advanceTo(START + 190));
+        assertEquals(List.of("b"), wheel.advanceTo(START + 200));
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.fetchbeebackend.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订单号生成基准（JMH）
+ * 对比原实现（每次新建格式化器、格式化当前时间并截取随机UUID）与 OrderNoGenerator，
+ * 分别测单线程和8线程并发下的耗时，gc 分析器输出每次调用的分配字节数。
+ * 运行：mvn test-compile 后以测试类路径执行本类的 main 方法。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderNoGeneratorBenchmark {
+
+    private OrderNoGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = new OrderNoGenerator();
+        ReflectionTestUtils.setField(generator, "configuredNodeId", 1);
+        generator.init();
+    }
+
+    @Benchmark
+    public String uuid() {
+        return uuidOrderNo();
+    }
+
+    @Benchmark
+    public String sequence() {
+        return generator.nextOrderNo();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String uuidContended() {
+        return uuidOrderNo();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String sequenceContended() {
+        return generator.nextOrderNo();
+    }
+
+    /**
+     * 原 OrderService.generateOrderNo 的实现
+     */
+    private static String uuidOrderNo() {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
+        String uuid = UUID.randomUUID().toString().replace("-", "").substring(0, 6);
+        return "FO" + timestamp + uuid;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OrderNoGeneratorBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
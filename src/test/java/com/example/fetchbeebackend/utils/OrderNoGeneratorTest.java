@@ -0,0 +1,166 @@
+package com.example.fetchbeebackend.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 订单号生成器测试
+ */
+class OrderNoGeneratorTest {
+
+    @Test
+    void orderNumbersAreStrictlyIncreasingWithinNode() {
+        OrderNoGenerator generator = configured(7);
+
+        String previous = generator.nextOrderNo();
+        for (int i = 0; i < 50_000; i++) {
+            String current = generator.nextOrderNo();
+            assertEquals(26, current.length());
+            assertTrue(current.startsWith("FO"));
+            assertEquals("007", current.substring(19, 22));
+            assertTrue(current.compareTo(previous) > 0, previous + " -> " + current);
+            previous = current;
+        }
+    }
+
+    @Test
+    void orderNumbersAreUniqueAcrossThreads() throws Exception {
+        OrderNoGenerator generator = configured(1);
+        int threads = 8;
+        int perThread = 20_000;
+        Set<String> orderNos = ConcurrentHashMap.newKeySet();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        orderNos.add(generator.nextOrderNo());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * perThread, orderNos.size());
+    }
+
+    @Test
+    void differentNodesNeverCollide() {
+        OrderNoGenerator first = configured(1);
+        OrderNoGenerator second = configured(2);
+        Set<String> orderNos = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(orderNos.add(first.nextOrderNo()));
+            assertTrue(orderNos.add(second.nextOrderNo()));
+        }
+    }
+
+    @Test
+    void leasesFirstFreeNodeIdFromRedisWhenNotConfigured() {
+        RedisUtil redisUtil = mock(RedisUtil.class);
+        when(redisUtil.increment("order:node-seq")).thenReturn(999L);
+        when(redisUtil.setStringIfAbsent(eq("order:node:999"), anyString(), anyLong(), eq(TimeUnit.SECONDS)))
+                .thenReturn(false);
+        when(redisUtil.setStringIfAbsent(eq("order:node:0"), anyString(), anyLong(), eq(TimeUnit.SECONDS)))
+                .thenReturn(true);
+
+        OrderNoGenerator generator = generator(-1, redisUtil);
+        generator.init();
+
+        assertEquals("000", generator.nextOrderNo().substring(19, 22));
+    }
+
+    @Test
+    void refusesToIssueOnceLocalLeaseExpiresAndRenewFails() {
+        RedisUtil redisUtil = leasingNodeZero();
+        when(redisUtil.execute(any(RedisScript.class), eq(List.of("order:node:0")), anyString(), anyString()))
+                .thenThrow(new RedisConnectionFailureException("redis down"));
+        OrderNoGenerator generator = generator(-1, redisUtil);
+        generator.init();
+
+        // 续期一直失败：本地租期到期后停止使用编号，避免 Redis 中过期后与新租用者重复
+        ReflectionTestUtils.setField(generator, "leaseDeadlineNanos", System.nanoTime() - 1);
+
+        assertThrows(IllegalStateException.class, generator::nextOrderNo);
+    }
+
+    @Test
+    void renewsSynchronouslyOnceLocalLeaseExpires() {
+        RedisUtil redisUtil = leasingNodeZero();
+        when(redisUtil.execute(any(RedisScript.class), eq(List.of("order:node:0")), anyString(), anyString()))
+                .thenReturn(1L);
+        OrderNoGenerator generator = generator(-1, redisUtil);
+        generator.init();
+        ReflectionTestUtils.setField(generator, "leaseDeadlineNanos", System.nanoTime() - 1);
+
+        assertEquals("000", generator.nextOrderNo().substring(19, 22));
+        long deadline = (long) ReflectionTestUtils.getField(generator, "leaseDeadlineNanos");
+        assertTrue(deadline - System.nanoTime() > 0);
+    }
+
+    @Test
+    void failsFastWhenNodeIdCannotBeLeased() {
+        RedisUtil redisUtil = mock(RedisUtil.class);
+        when(redisUtil.increment("order:node-seq")).thenThrow(new IllegalStateException("redis down"));
+
+        OrderNoGenerator generator = generator(-1, redisUtil);
+
+        assertThrows(IllegalStateException.class, generator::init);
+    }
+
+    @Test
+    void rejectsOutOfRangeNodeId() {
+        OrderNoGenerator generator = generator(1000, mock(RedisUtil.class));
+
+        assertThrows(IllegalStateException.class, generator::init);
+    }
+
+    private RedisUtil leasingNodeZero() {
+        RedisUtil redisUtil = mock(RedisUtil.class);
+        when(redisUtil.increment("order:node-seq")).thenReturn(0L);
+        when(redisUtil.setStringIfAbsent(eq("order:node:0"), anyString(), anyLong(), eq(TimeUnit.SECONDS)))
+                .thenReturn(true);
+        return redisUtil;
+    }
+
+    private OrderNoGenerator configured(int nodeId) {
+        OrderNoGenerator generator = generator(nodeId, mock(RedisUtil.class));
+        generator.init();
+        return generator;
+    }
+
+    private OrderNoGenerator generator(int nodeId, RedisUtil redisUtil) {
+        OrderNoGenerator generator = new OrderNoGenerator();
+        ReflectionTestUtils.setField(generator, "configuredNodeId", nodeId);
+        ReflectionTestUtils.setField(generator, "leaseSeconds", 60L);
+        ReflectionTestUtils.setField(generator, "redisUtil", redisUtil);
+        return generator;
+    }
+}